@@ -0,0 +1,156 @@
+package huffman.bench;
+
+import java.util.Random;
+
+/**
+ * Synthetic inputs for the benchmarks. Each one is generated from a fixed
+ * seed, so every run and every machine measures the same bytes.
+ */
+public enum Corpus {
+	/** Every byte value equally likely: nothing to gain, the worst case for the coder. */
+	UNIFORM,
+	/** Words of English-like lengths and letter frequencies, with spaces and punctuation. */
+	ENGLISH,
+	/** Byte values drawn from a Zipf distribution: a few very common, a long tail of rare ones. */
+	ZIPF,
+	/** A short phrase repeated over and over, with an occasional changed byte. */
+	REPETITIVE,
+	/** A few hundred bytes of English-like text, whatever size is asked for. */
+	TINY;
+
+	public static final long SEED = 20170908L;
+	public static final int TINY_SIZE = 300;
+
+	private static final String LETTERS = "etaoinshrdlcumwfgypbvkjxqz";
+	private static final String PHRASE = "the quick brown fox jumps over the lazy dog. ";
+
+	/**
+	 * Generates size bytes of this corpus (TINY_SIZE bytes for TINY).
+	 * @param size
+	 * @return the corpus
+	 */
+	public byte[] generate(int size) {
+		Random random = new Random(SEED + ordinal());
+
+		switch (this) {
+		case UNIFORM: {
+			byte data[] = new byte[size];
+			random.nextBytes(data);
+			return data;
+		}
+		case ENGLISH:
+			return english(random, size);
+		case ZIPF:
+			return zipf(random, size, 1.1);
+		case REPETITIVE: {
+			byte data[] = new byte[size];
+			for (int i = 0; i < size; i++) {
+				data[i] = (byte) PHRASE.charAt(i % PHRASE.length());
+				if (random.nextInt(1000) == 0) {
+					data[i] = (byte) ('a' + random.nextInt(26));
+				}
+			}
+			return data;
+		}
+		default:
+			return english(random, TINY_SIZE);
+		}
+	}
+
+	/**
+	 * Text made of words with letters drawn from a Zipf distribution over
+	 * LETTERS in order of English frequency.
+	 * @param random
+	 * @param size
+	 * @return text
+	 */
+	private static byte[] english(Random random, int size) {
+		double letterWeights[] = zipfWeights(LETTERS.length(), 1.0);
+		byte data[] = new byte[size];
+		int i = 0;
+		boolean sentenceStart = true;
+
+		while (i < size) {
+			int length = 1 + Math.min(random.nextInt(4) + random.nextInt(5), 11);
+
+			for (int k = 0; k < length && i < size; k++) {
+				char c = LETTERS.charAt(pick(random, letterWeights));
+				data[i++] = (byte) (sentenceStart && k == 0 ? Character.toUpperCase(c) : c);
+			}
+			sentenceStart = false;
+			if (i < size && random.nextInt(12) == 0) {
+				data[i++] = (byte) (random.nextInt(3) == 0 ? ',' : '.');
+				sentenceStart = data[i - 1] == '.';
+			}
+			if (i < size) {
+				data[i++] = (byte) (random.nextInt(60) == 0 ? '\n' : ' ');
+			}
+		}
+		return data;
+	}
+
+	/**
+	 * Bytes drawn from a Zipf distribution over all 256 values, the most
+	 * likely ones scattered over the byte range.
+	 * @param random
+	 * @param size
+	 * @param exponent
+	 * @return data
+	 */
+	private static byte[] zipf(Random random, int size, double exponent) {
+		double weights[] = zipfWeights(256, exponent);
+		int symbols[] = new int[256];
+		byte data[] = new byte[size];
+
+		for (int i = 0; i < 256; i++) {
+			symbols[i] = (i * 167 + 13) & 0xFF;
+		}
+		for (int i = 0; i < size; i++) {
+			data[i] = (byte) symbols[pick(random, weights)];
+		}
+		return data;
+	}
+
+	/**
+	 * Cumulative Zipf weights, normalised to end at 1.
+	 * @param n
+	 * @param exponent
+	 * @return cumulative weights
+	 */
+	private static double[] zipfWeights(int n, double exponent) {
+		double cumulative[] = new double[n];
+		double sum = 0;
+
+		for (int k = 0; k < n; k++) {
+			sum += 1.0 / Math.pow(k + 1, exponent);
+			cumulative[k] = sum;
+		}
+		for (int k = 0; k < n; k++) {
+			cumulative[k] /= sum;
+		}
+		return cumulative;
+	}
+
+	/**
+	 * Picks an index from cumulative weights.
+	 * @param random
+	 * @param cumulative
+	 * @return index
+	 */
+	private static int pick(Random random, double cumulative[]) {
+		double x = random.nextDouble();
+		int low = 0;
+		int high = cumulative.length - 1;
+
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (cumulative[middle] < x) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+}
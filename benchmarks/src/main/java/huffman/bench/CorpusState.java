@@ -0,0 +1,65 @@
+package huffman.bench;
+
+import huffman.BinaryFile;
+import huffman.Compress;
+import huffman.TextFile;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * One corpus, in memory and on disk, plus its canonical-format compressed
+ * file and the frequencies and code table built from it.
+ */
+@State(Scope.Benchmark)
+public class CorpusState {
+	@Param({ "UNIFORM", "ENGLISH", "ZIPF", "REPETITIVE", "TINY" })
+	public Corpus corpus;
+
+	@Param({ "1048576" })
+	public int size;
+
+	public byte data[];
+	public File directory;
+	public String input;
+	public String compressed;
+	public String output;
+	public long frequency[];
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		data = corpus.generate(size);
+		directory = Files.createTempDirectory("huffman-bench").toFile();
+		input = new File(directory, "input").getPath();
+		compressed = new File(directory, "input.huf").getPath();
+		output = new File(directory, "output").getPath();
+		Files.write(new File(input).toPath(), data);
+
+		Compress compress = new Compress();
+		TextFile in = new TextFile(input, 'r');
+		BinaryFile out = new BinaryFile(compressed, 'w');
+
+		compress.countFrequency(in);
+		compress.buildFrequencyArray();
+		compress.buildHuffmanTree();
+		compress.buildCanonicalTable();
+		compress.compress(in, out);
+		in.close();
+		out.close();
+		frequency = compress.getFrequency().clone();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+}
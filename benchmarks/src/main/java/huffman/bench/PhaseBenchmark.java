@@ -0,0 +1,122 @@
+package huffman.bench;
+
+import huffman.BinaryFile;
+import huffman.CodeLengths;
+import huffman.Compress;
+import huffman.FrequencyCounter;
+import huffman.HuffmanDecoder;
+import huffman.HuffmanTree;
+import huffman.TextFile;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Each phase of compressing and uncompressing a file on its own, in the
+ * order Driver runs them. Times are per call; the corpus size is a parameter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhaseBenchmark {
+
+	/**
+	 * A Compress that has already counted and built its tree, and the corpus
+	 * opened for reading, so each phase can run without the ones before it.
+	 */
+	@State(Scope.Thread)
+	public static class Prepared {
+		public Compress compress;
+		public TextFile input;
+
+		@Setup(Level.Trial)
+		public void setUp(CorpusState state) {
+			input = new TextFile(state.input, 'r');
+			compress = new Compress();
+			compress.countFrequency(input);
+			compress.buildFrequencyArray();
+			compress.buildHuffmanTree();
+			compress.buildCanonicalTable();
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			input.close();
+		}
+	}
+
+	/** Compress.countFrequency: one pass over the file (it rewinds afterwards). */
+	@Benchmark
+	public long[] countFrequency(Prepared prepared) {
+		prepared.compress.countFrequency(prepared.input);
+		return prepared.compress.getFrequency();
+	}
+
+	/** The histogram loop of countFrequency on bytes already in memory. */
+	@Benchmark
+	public long[] countBytes(CorpusState state) {
+		long frequency[] = new long[256];
+
+		FrequencyCounter.count(state.data, 0, state.data.length, frequency);
+		return frequency;
+	}
+
+	/** Compress.buildFrequencyArray and Compress.buildHuffmanTree. */
+	@Benchmark
+	public HuffmanTree buildHuffmanTree(CorpusState state) {
+		Compress compress = new Compress();
+
+		compress.setFrequency(state.frequency.clone());
+		compress.buildFrequencyArray();
+		compress.buildHuffmanTree();
+		return compress.getTree();
+	}
+
+	/** Compress.buildLookUpTable: codes read off the tree, for the "HF" format. */
+	@Benchmark
+	public long[] buildLookUpTable(Prepared prepared) {
+		prepared.compress.buildLookUpTable();
+		return prepared.compress.getCodes();
+	}
+
+	/** Compress.buildCanonicalTable: length-limited canonical codes, for the "HC" format. */
+	@Benchmark
+	public int[] buildCanonicalTable(Prepared prepared) {
+		prepared.compress.buildCanonicalTable();
+		return prepared.compress.getLengths();
+	}
+
+	/** Compress.compress: encoding the file with a ready code table. */
+	@Benchmark
+	public void compress(Prepared prepared, CorpusState state) {
+		BinaryFile out = new BinaryFile(state.output, 'w');
+
+		prepared.input.rewind();
+		prepared.compress.compress(prepared.input, out);
+		out.close();
+	}
+
+	/** Uncompressing an "HC" file: reading the code lengths, building the decoder and decoding. */
+	@Benchmark
+	public void uncompress(CorpusState state) {
+		BinaryFile in = new BinaryFile(state.compressed, 'r');
+		TextFile out = new TextFile(state.output, 'w');
+
+		in.readMagicNumber();
+		new HuffmanDecoder(CodeLengths.read(in)).decode(in, out);
+		in.close();
+		out.close();
+	}
+}
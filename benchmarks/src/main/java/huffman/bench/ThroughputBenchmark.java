@@ -0,0 +1,94 @@
+package huffman.bench;
+
+import huffman.BinaryFile;
+import huffman.BitWriter;
+import huffman.BlockCodec;
+import huffman.CodeLengths;
+import huffman.Compress;
+import huffman.DecoderCache;
+import huffman.HuffmanDecoder;
+import huffman.TextFile;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole files compressed and uncompressed the way Driver does it, and whole
+ * blocks in memory the way BlockCodec does it. Scores are operations per
+ * second; multiply by the corpus size for bytes per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThroughputBenchmark {
+
+	/**
+	 * The corpus encoded as a single block.
+	 */
+	@State(Scope.Thread)
+	public static class Block {
+		public BitWriter payload;
+		public byte decoded[];
+		public DecoderCache decoders;
+
+		@Setup(Level.Trial)
+		public void setUp(CorpusState state) {
+			payload = BlockCodec.encodeBlock(state.data, 0, state.data.length, Compress.DEFAULT_MAX_CODE_LENGTH);
+			decoded = new byte[state.data.length];
+			decoders = new DecoderCache(DecoderCache.DEFAULT_CAPACITY);
+		}
+	}
+
+	/** Counting, building the canonical code and encoding a file, as "-c" does. */
+	@Benchmark
+	public void compressFile(CorpusState state) {
+		Compress compress = new Compress();
+		TextFile in = new TextFile(state.input, 'r');
+		BinaryFile out = new BinaryFile(state.output, 'w');
+
+		compress.countFrequency(in);
+		compress.buildFrequencyArray();
+		compress.buildHuffmanTree();
+		compress.buildCanonicalTable();
+		compress.compress(in, out);
+		in.close();
+		out.close();
+	}
+
+	/** Uncompressing an "HC" file, as "-u" does. */
+	@Benchmark
+	public void uncompressFile(CorpusState state) {
+		BinaryFile in = new BinaryFile(state.compressed, 'r');
+		TextFile out = new TextFile(state.output, 'w');
+
+		in.readMagicNumber();
+		new HuffmanDecoder(CodeLengths.read(in)).decode(in, out);
+		in.close();
+		out.close();
+	}
+
+	/** BlockCodec.encodeBlock on the whole corpus, without any file I/O. */
+	@Benchmark
+	public BitWriter encodeBlock(CorpusState state) {
+		return BlockCodec.encodeBlock(state.data, 0, state.data.length, Compress.DEFAULT_MAX_CODE_LENGTH);
+	}
+
+	/** BlockCodec.decodeBlock on the whole corpus, without any file I/O. */
+	@Benchmark
+	public byte[] decodeBlock(Block block) {
+		BlockCodec.decodeBlock(block.payload.getBytes(), block.payload.length(), block.decoded, 0,
+				block.decoded.length, block.decoders);
+		return block.decoded;
+	}
+}
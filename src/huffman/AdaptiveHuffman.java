@@ -0,0 +1,227 @@
+package huffman;
+
+import java.util.Arrays;
+
+/**
+ * Adaptive Huffman coding (the FGK algorithm). The encoder and the decoder
+ * start from the same empty tree and update it in the same way after every
+ * character, so no frequencies or code lengths are stored and the input only
+ * has to be read once. A character that has not been seen yet is sent as the
+ * code of the NYT ("not yet transmitted") leaf followed by its 8 bits.
+ *
+ * The tree lives in arrays indexed by node number. Numbers grow with weight
+ * (the sibling property), the root has the highest number, and keeping that
+ * order after an increment only needs swapping a node with the highest
+ * numbered node of the same weight.
+ */
+public class AdaptiveHuffman {
+	private static final int NODES = 2 * 257 - 1;
+	private static final int ROOT = NODES - 1;
+	private static final int INTERNAL = -1;
+	private static final int NYT = 256;
+
+	private long weight[];
+	private int parent[];
+	private int left[];
+	private int right[];
+	private int symbol[];
+	private int leafOf[];
+	private int nyt;
+	private int nextFree;
+	private int path[];
+
+	/**
+	 * Creates a coder with a tree that holds only the NYT leaf.
+	 */
+	public AdaptiveHuffman() {
+		weight = new long[NODES];
+		parent = new int[NODES];
+		left = new int[NODES];
+		right = new int[NODES];
+		symbol = new int[NODES];
+		leafOf = new int[256];
+		path = new int[NODES];
+
+		Arrays.fill(leafOf, -1);
+		parent[ROOT] = -1;
+		left[ROOT] = -1;
+		right[ROOT] = -1;
+		symbol[ROOT] = NYT;
+		nyt = ROOT;
+		nextFree = ROOT - 1;
+	}
+
+	/**
+	 * Compresses the rest of the text file in a single pass.
+	 * @param iFile
+	 * @param oFile
+	 */
+	public void compress(TextFile iFile, BinaryFile oFile) {
+		byte block[] = new byte[TextFile.DEFAULT_BUFFER_SIZE];
+		int n;
+
+		oFile.writeChar('H'); oFile.writeChar('A');
+		while ((n = iFile.read(block, 0, block.length)) > 0) {
+			for (int i = 0; i < n; i++) {
+				encode(block[i] & 0xFF, oFile);
+			}
+		}
+	}
+
+	/**
+	 * Decompresses the rest of the binary file, which follows the "HA" magic number.
+	 * @param iFile
+	 * @param oFile
+	 */
+	public void decompress(BinaryFile iFile, TextFile oFile) {
+		byte block[] = new byte[TextFile.DEFAULT_BUFFER_SIZE];
+		int n = 0;
+
+		while (!iFile.EndOfFile()) {
+			block[n++] = (byte) decode(iFile);
+			if (n == block.length) {
+				oFile.write(block, 0, n);
+				n = 0;
+			}
+		}
+		oFile.write(block, 0, n);
+	}
+
+	/**
+	 * Writes the code of c (or the NYT code and c itself) and updates the tree.
+	 * @param c
+	 * @param out
+	 */
+	public void encode(int c, BitOutput out) {
+		int node = leafOf[c] >= 0 ? leafOf[c] : nyt;
+		int depth = 0;
+
+		// climb to the root, remembering which side each node hangs on
+		while (node != ROOT) {
+			path[depth++] = right[parent[node]] == node ? 1 : 0;
+			node = parent[node];
+		}
+		while (depth > 0) {
+			int bits = Math.min(depth, 56);
+			long code = 0;
+
+			for (int i = 0; i < bits; i++) {
+				code = (code << 1) | path[--depth];
+			}
+			out.writeBits(code, bits);
+		}
+
+		if (leafOf[c] < 0) {
+			out.writeBits(c, 8);
+		}
+		update(c);
+	}
+
+	/**
+	 * Reads one character by walking the tree from the root and updates the tree.
+	 * @param in
+	 * @return character
+	 */
+	public int decode(BitInput in) {
+		int node = ROOT;
+
+		while (symbol[node] == INTERNAL) {
+			int bit = (int) in.peekBits(1);
+			in.skipBits(1);
+			node = bit == 1 ? right[node] : left[node];
+		}
+
+		int c = symbol[node];
+		if (c == NYT) {
+			c = (int) in.peekBits(8);
+			in.skipBits(8);
+		}
+		update(c);
+		return c;
+	}
+
+	/**
+	 * Adds one to the weight of c's leaf and every node above it, swapping
+	 * nodes first where needed to keep the sibling property. A new character
+	 * splits the NYT leaf into a new NYT leaf and a leaf for the character.
+	 * @param c
+	 */
+	private void update(int c) {
+		int node = leafOf[c];
+
+		if (node < 0) {
+			Assert.notFalse(nextFree >= 1, "Adaptive tree is full");
+			int leaf = nextFree--;
+			int newNyt = nextFree--;
+
+			symbol[nyt] = INTERNAL;
+			left[nyt] = newNyt;
+			right[nyt] = leaf;
+			makeLeaf(leaf, c, nyt);
+			makeLeaf(newNyt, NYT, nyt);
+			leafOf[c] = leaf;
+			nyt = newNyt;
+			node = leaf;
+		}
+
+		while (node != -1) {
+			int leader = node;
+
+			while (leader + 1 < NODES && weight[leader + 1] == weight[node]) {
+				leader++;
+			}
+			if (leader != node && leader != parent[node]) {
+				swap(node, leader);
+				node = leader;
+			}
+			weight[node]++;
+			node = parent[node];
+		}
+	}
+
+	/**
+	 * Sets up an empty leaf.
+	 * @param node
+	 * @param c
+	 * @param up
+	 */
+	private void makeLeaf(int node, int c, int up) {
+		weight[node] = 0;
+		parent[node] = up;
+		left[node] = -1;
+		right[node] = -1;
+		symbol[node] = c;
+	}
+
+	/**
+	 * Swaps the subtrees numbered a and b. The numbers keep their parents;
+	 * what hangs below them changes places.
+	 * @param a
+	 * @param b
+	 */
+	private void swap(int a, int b) {
+		long w = weight[a]; weight[a] = weight[b]; weight[b] = w;
+		int s = symbol[a]; symbol[a] = symbol[b]; symbol[b] = s;
+		int l = left[a]; left[a] = left[b]; left[b] = l;
+		int r = right[a]; right[a] = right[b]; right[b] = r;
+		attach(a);
+		attach(b);
+	}
+
+	/**
+	 * Points the children of node (or the leaf table, for a leaf) back at node.
+	 * @param node
+	 */
+	private void attach(int node) {
+		if (symbol[node] == INTERNAL) {
+			parent[left[node]] = node;
+			parent[right[node]] = node;
+		}
+		else if (symbol[node] == NYT) {
+			nyt = node;
+		}
+		else {
+			leafOf[symbol[node]] = node;
+		}
+	}
+}
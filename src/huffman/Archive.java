@@ -0,0 +1,322 @@
+package huffman;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Many files compressed into one archive ("HR"), with a central index at the
+ * end so any one entry can be extracted without reading the others.
+ *
+ * Layout: the magic number, the offset of the index (64 bits), then the
+ * entries, each one a block stream as written by HuffmanOutputStream, then the
+ * index: the number of entries (32 bits) and for each one its name, offset,
+ * compressed length and original length. The blocks of the entries are
+ * compressed on a pool of threads and written in order, like the blocks of
+ * BlockCodec. The compressed size counts the entries only, without the
+ * header and the index, whether the archive is created or extracted.
+ */
+public class Archive {
+	/** "HR" stored the same way as BlockCodec.MAGIC. */
+	public static final byte MAGIC[] = { (byte) (Integer.reverse('H') >>> 24), (byte) (Integer.reverse('R') >>> 24) };
+
+	private int blockSize;
+	private int maxCodeLength;
+	private int threads;
+	private DecoderCache decoders;
+	private long originalBytes;
+	private long compressedBytes;
+	private int entries;
+
+	public Archive(int blockSize, int maxCodeLength, int threads) {
+		Assert.notFalse(threads >= 1, "Need at least one thread");
+		CodeLengths.checkLimit(maxCodeLength);
+		this.blockSize = blockSize;
+		this.maxCodeLength = maxCodeLength;
+		this.threads = threads;
+		this.decoders = new DecoderCache(DecoderCache.DEFAULT_CAPACITY);
+	}
+
+	public long getOriginalBytes() {
+		return originalBytes;
+	}
+
+	public long getCompressedBytes() {
+		return compressedBytes;
+	}
+
+	public int getEntries() {
+		return entries;
+	}
+
+	public void setDecoderCache(DecoderCache decoders) {
+		this.decoders = decoders;
+	}
+
+	/**
+	 * Compresses the files into a new archive. Entries are named after the
+	 * files, so the names have to be different. Each file is read a block at
+	 * a time and its blocks go straight into the archive, so only the blocks
+	 * in flight are held in memory: up to twice as many as there are threads,
+	 * from one entry or from several small ones. Their length goes in the
+	 * index, which is written last.
+	 * @param files
+	 * @param archive
+	 */
+	public void create(List<File> files, String archive) {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		ArrayDeque<PendingBlock> pending = new ArrayDeque<PendingBlock>();
+		List<Entry> index = new ArrayList<Entry>();
+		HashSet<String> names = new HashSet<String>();
+		int inFlight = 0;
+
+		try (RandomAccessFile out = new RandomAccessFile(archive, "rw")) {
+			out.setLength(0);
+			out.write(MAGIC);
+			out.writeLong(0);
+			for (File file : files) {
+				Assert.notFalse(names.add(file.getName()), "Two files named " + file.getName());
+				Entry entry = new Entry(file.getName(), 0, 0, file.length());
+
+				pending.add(new PendingBlock(entry, -1, null));
+				try (InputStream in = new FileInputStream(file)) {
+					while (true) {
+						byte block[] = new byte[blockSize];
+						int n = in.readNBytes(block, 0, blockSize);
+
+						if (n == 0) {
+							break;
+						}
+						pending.add(new PendingBlock(entry, n,
+								pool.submit(() -> BlockCodec.encodeBlock(block, 0, n, maxCodeLength))));
+						inFlight++;
+						while (inFlight >= 2 * threads) {
+							PendingBlock next = pending.poll();
+
+							writeBlock(out, next);
+							if (next.payload != null) {
+								inFlight--;
+							}
+						}
+					}
+				}
+				pending.add(new PendingBlock(entry, 0, null));
+				index.add(entry);
+			}
+			while (!pending.isEmpty()) {
+				writeBlock(out, pending.poll());
+			}
+
+			long indexOffset = out.getFilePointer();
+			out.writeInt(index.size());
+			for (Entry entry : index) {
+				out.writeUTF(entry.name);
+				out.writeLong(entry.offset);
+				out.writeLong(entry.length);
+				out.writeLong(entry.original);
+			}
+			out.seek(MAGIC.length);
+			out.writeLong(indexOffset);
+		}
+		catch (Exception e) {
+			System.out.println(e.getMessage());
+			System.exit(0);
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Appends the start of an entry, one of its blocks or its end marker to
+	 * the archive, in the layout of HuffmanOutputStream.
+	 * @param out
+	 * @param block
+	 * @throws Exception
+	 */
+	private void writeBlock(RandomAccessFile out, PendingBlock block) throws Exception {
+		Entry entry = block.entry;
+
+		if (block.original < 0) {
+			entry.offset = out.getFilePointer();
+			out.write(BlockCodec.MAGIC);
+			out.writeInt(blockSize);
+		}
+		else if (block.original == 0) {
+			out.writeInt(0);
+			entry.length = out.getFilePointer() - entry.offset;
+			originalBytes += entry.original;
+			compressedBytes += entry.length;
+			entries++;
+		}
+		else {
+			BitWriter payload = block.payload.get();
+
+			out.writeInt(block.original);
+			out.writeInt(payload.length());
+			out.write(payload.getBytes(), 0, payload.length());
+		}
+	}
+
+	/**
+	 * Reads the central index of an archive.
+	 * @param archive
+	 * @return the entries, in the order they were written
+	 */
+	public static List<Entry> list(String archive) {
+		List<Entry> index = new ArrayList<Entry>();
+
+		try (RandomAccessFile in = new RandomAccessFile(archive, "r")) {
+			byte magic[] = new byte[MAGIC.length];
+
+			in.readFully(magic);
+			Assert.notFalse(magic[0] == MAGIC[0] && magic[1] == MAGIC[1], archive + " is not an archive");
+			in.seek(in.readLong());
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				index.add(new Entry(in.readUTF(), in.readLong(), in.readLong(), in.readLong()));
+			}
+		}
+		catch (Exception e) {
+			System.out.println(e.getMessage());
+			System.exit(0);
+		}
+		return index;
+	}
+
+	/**
+	 * Extracts the entry with the given name. Only the index and that entry are read.
+	 * @param archive
+	 * @param name
+	 * @param output
+	 */
+	public void extract(String archive, String name, String output) {
+		for (Entry entry : list(archive)) {
+			if (entry.name.equals(name)) {
+				extractEntry(archive, entry, output);
+				return;
+			}
+		}
+		Assert.notFalse(false, "No entry named " + name);
+	}
+
+	/**
+	 * Extracts every entry into a directory, several entries at a time.
+	 * @param archive
+	 * @param directory
+	 */
+	public void extractAll(String archive, String directory) {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<?>> pending = new ArrayList<Future<?>>();
+
+		new File(directory).mkdirs();
+		try {
+			for (Entry entry : list(archive)) {
+				// names come from File.getName, so anything else would escape the directory
+				Assert.notFalse(entry.name.equals(new File(entry.name).getName()), "Bad entry name " + entry.name);
+				String output = new File(directory, entry.name).getPath();
+				pending.add(pool.submit(() -> extractEntry(archive, entry, output)));
+			}
+			for (Future<?> future : pending) {
+				future.get();
+			}
+		}
+		catch (Exception e) {
+			System.out.println(e.getMessage());
+			System.exit(0);
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Decompresses one entry, reading the archive from the entry's offset.
+	 * @param archive
+	 * @param entry
+	 * @param output
+	 */
+	private void extractEntry(String archive, Entry entry, String output) {
+		byte buffer[] = new byte[TextFile.DEFAULT_BUFFER_SIZE];
+		int n;
+
+		try (RandomAccessFile file = new RandomAccessFile(archive, "r")) {
+			InputStream in = new BufferedInputStream(Channels.newInputStream(file.getChannel().position(entry.offset)));
+			HuffmanInputStream entryIn = new HuffmanInputStream(in, decoders);
+			TextFile out = new TextFile(output, 'w');
+
+			while ((n = entryIn.read(buffer, 0, buffer.length)) > 0) {
+				out.write(buffer, 0, n);
+			}
+			out.close();
+		}
+		catch (Exception e) {
+			System.out.println(e.getMessage());
+			System.exit(0);
+		}
+		synchronized (this) {
+			originalBytes += entry.original;
+			compressedBytes += entry.length;
+			entries++;
+		}
+	}
+
+	/**
+	 * One entry of the index.
+	 */
+	public static class Entry {
+		private final String name;
+		private long offset;
+		private long length;
+		private final long original;
+
+		public Entry(String name, long offset, long length, long original) {
+			this.name = name;
+			this.offset = offset;
+			this.length = length;
+			this.original = original;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getOffset() {
+			return offset;
+		}
+
+		public long getLength() {
+			return length;
+		}
+
+		public long getOriginal() {
+			return original;
+		}
+	}
+
+	/**
+	 * A block of an entry being compressed, or with original length -1 the
+	 * start of the entry and with 0 its end.
+	 */
+	private static class PendingBlock {
+		private final Entry entry;
+		private final int original;
+		private final Future<BitWriter> payload;
+
+		public PendingBlock(Entry entry, int original, Future<BitWriter> payload) {
+			this.entry = entry;
+			this.original = original;
+			this.payload = payload;
+		}
+	}
+}
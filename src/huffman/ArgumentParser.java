@@ -1,3 +1,5 @@
+package huffman;
+
 import java.util.HashMap;
 import java.util.Map;
 
@@ -138,6 +140,22 @@ public class ArgumentParser {
         }
         return true;
     }
+
+    /**
+     * Tests if the provided string can be parsed as a long, for values such
+     * as offsets into large files.
+     *
+     * @param s - string to test
+     * @return true if the string is a long
+     */
+    public static boolean isLong(String s) {
+        try { 
+            Long.parseLong(s);
+        } catch(NumberFormatException e) {
+            return false; 
+        }
+        return true;
+    }
     
     @Override
     public String toString() {
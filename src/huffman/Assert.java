@@ -1,3 +1,5 @@
+package huffman;
+
 public class Assert {
 
     public static void notFalse(boolean flag, String message) {
@@ -0,0 +1,546 @@
+package huffman;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+public class BinaryFile implements BitInput, BitOutput {
+
+/**
+ * Binary File constructor.  Open a file for reading, or create
+ * a file for writing.  If we create a file, and a file already
+ * exists with that name, the old file will be removed.
+ * @param filename The name of the file to read from or write to
+ * @param readOrWrite 'w' or 'W' for an output file (open for writing), 
+ *        'r' or 'R' for an input file (open for reading), and 'm' or 'M'
+ *        for an input file that is read through memory-mapped windows
+ */
+    public BinaryFile(String filename, char readOrWrite) {
+	bitbuf = 0;
+	bitcount = 0;
+	total_bits = 0;
+	bitsread = 0;
+	bytes = new byte[BUFFER_SIZE];
+	bytepos = 0;
+	bytelen = 0;
+	try {
+	    if (readOrWrite == 'w' || readOrWrite == 'W') {
+		inputFile = false;
+		file = new RandomAccessFile(filename, "rw");
+		file.setLength(0);
+		/* header -- the # of bits in the file, filled in by close */
+		file.writeInt(0);
+	    } else if (readOrWrite == 'r' || readOrWrite == 'R') {  
+		inputFile = true;
+		file = new RandomAccessFile(filename, "r");
+		total_bits = readHeader();
+	    } else if (readOrWrite == 'm' || readOrWrite == 'M') {
+		inputFile = true;
+		mapped = true;
+		file = new RandomAccessFile(filename, "r");
+		total_bits = readHeader();
+		mapped_end = file.getFilePointer();
+	    }
+	} catch(Exception e) {
+	    System.out.println(e.getMessage());
+	    System.exit(0);
+	}
+    }
+
+
+/**
+ * Read the number of bits in the file.  Files start with the count as
+ * an int, which only covers 256 MB of output.  Larger files start with
+ * LONG_TRAILER instead and end with the count as a long.
+ * @return The number of bits in the file
+ */
+    private long readHeader() throws IOException 
+    {
+	int header = file.readInt();
+
+	if (header == LONG_TRAILER) 
+        {
+	    file.seek(file.length() - 8);
+	    long bits = file.readLong();
+	    file.seek(4);
+	    return bits;
+	}
+	return header;
+    }
+
+/**
+ * Number of bits the header and trailer add to a file of the given size.
+ * @param bits The number of bits of data in the file
+ * @return 32 for the int count, 96 when the count needs a trailing long
+ */
+    public static long headerBits(long bits) 
+    {
+	return bits <= Integer.MAX_VALUE ? 32 : 32 + 64;
+    }
+
+/**
+ * Checks to see if we are at the end of a file.  This method is only 
+ * valid for input files, calling EndOfFile on an output fill will
+ * cause the program to halt execution.
+ * @return True if we are at the end of an input file, and false otherwise
+ */
+    public boolean EndOfFile() 
+    {
+	Assert.notFalse(inputFile,"EndOfFile only relevant for input files");
+	return bitsread == total_bits;
+    }
+
+/**
+ * Read in the next 8 bits to the input file, and interpret them as 
+ * a character.  This method is only valid for input files, and
+ * will halt execution of called on an output file.
+ * @return The next character from an input file
+ */
+    public char readChar() 
+    {
+	Assert.notFalse(inputFile,"Can only read from input files");
+	Assert.notFalse(total_bits - bitsread >= 8,"Read past end of file");
+
+	/* characters are stored least significant bit first */
+	int charbuf = (int) peekBits(8);
+	skipBits(8);
+	return (char) (Integer.reverse(charbuf) >>> 24);
+    }
+
+/**
+ * Write a character to an output file.  The 8 bits representing the character
+ * are written one at a time to the file.  This method is only valid for
+ * output files, and will halt execution if called on an input file.
+ * @param c The character to write to the output file.
+ */
+    public void writeChar(char c) 
+    {
+	Assert.notFalse(!inputFile,"Can only write to output files");
+
+	/* characters are stored least significant bit first */
+	writeBits(Integer.reverse(c & 0xFF) >>> 24, 8);
+    }
+
+/**
+ * Write a bit to an output file  This method is only valid for
+ * output files, and will halt execution if called on an input file.
+ * @param bit The bit to write.  false writes a 0 and true writes a 1.
+ */    
+    public void writeBit(boolean bit) 
+    {
+	Assert.notFalse(!inputFile,"Can't write to an input file");
+	writeBits(bit ? 1 : 0, 1);
+    }
+
+/**
+ * Write the low len bits of code to an output file, most significant
+ * bit first.  Bits are packed into a 64-bit register, which is moved to
+ * the output buffer 8 bytes at a time, so a whole Huffman code costs a
+ * single call.  This method is only valid for output files.
+ * @param code The bits to write, right-aligned
+ * @param len The number of bits to write, from 0 to 64
+ */
+    public void writeBits(long code, int len) 
+    {
+	int free = 64 - bitcount;
+
+	total_bits += len;
+	if (len < free) 
+        {
+	    bitbuf = (bitbuf << len) | (code & ((1L << len) - 1));
+	    bitcount += len;
+	    return;
+	}
+	int rest = len - free;
+	bitbuf = (bitbuf << free) | ((code >>> rest) & (-1L >>> bitcount));
+	if (bytelen + 8 > bytes.length) 
+        {
+	    flushBuffer();
+	}
+	for (int shift = 56; shift >= 0; shift -= 8) 
+        {
+	    bytes[bytelen++] = (byte) (bitbuf >>> shift);
+	}
+	bitbuf = rest == 0 ? 0 : code & (-1L >>> (64 - rest));
+	bitcount = rest;
+    }
+
+/**
+ * Number of bits written to an output file so far, not counting the
+ * header that close fills in.
+ * @return bits
+ */
+    public long bitsWritten() 
+    {
+	Assert.notFalse(!inputFile,"Only output files count the bits written");
+	return total_bits;
+    }
+
+/**
+ * Throw away everything written to an output file, so it can be written
+ * again from the start.
+ */
+    public void rewind() 
+    {
+	Assert.notFalse(!inputFile,"Can only rewind output files");
+	try 
+        {
+	    file.setLength(0);
+	    file.writeInt(0);
+	    bitbuf = 0;
+	    bitcount = 0;
+	    bytelen = 0;
+	    total_bits = 0;
+	} 
+        catch (Exception e) 
+        {
+	    System.out.println(e.getMessage());
+	    System.exit(0);
+	}
+    }
+
+/**
+ * Write the output buffer to the file.
+ */
+    private void flushBuffer() 
+    {
+	try 
+        {
+	    long start = System.nanoTime();
+	    file.write(bytes, 0, bytelen);
+	    bytelen = 0;
+	    ioWait(start);
+	} 
+        catch (Exception e) 
+        {
+	    System.out.println(e.getMessage());
+	    System.exit(0);
+	}
+    }
+    
+/**
+ * Read a bit from an input file.  This method is only valid for
+ * input files, and will halt execution if called on an output file.
+ * (This method should probably really throw an
+ * exception instead of halting the program on an error, but I'm 
+ * trying to make your code a little simpler)
+ * @return The next bit in the input file -- false for 0 and true for 1.
+ */    
+    public boolean readBit() 
+    {
+	Assert.notFalse(inputFile,"Can't read from an output file");
+	Assert.notFalse(bitsread < total_bits,"Read past end of file");
+	boolean bit = peekBits(1) != 0;
+	skipBits(1);
+	return bit;
+    }
+
+/**
+ * Look at the next n bits of an input file without consuming them.
+ * Bits past the end of the file read as zeros, so a decoder can always
+ * peek a full table index.  This method is only valid for input files.
+ * @param n The number of bits to look at, from 0 to 56
+ * @return The next n bits, right-aligned, most significant bit first
+ */
+    public long peekBits(int n) 
+    {
+	if (bitcount < n) 
+        {
+	    refill();
+	}
+	return (bitbuf >>> (bitcount - n)) & ((1L << n) - 1);
+    }
+
+/**
+ * Consume n bits of an input file that have already been looked at
+ * with peekBits.
+ * @param n The number of bits to consume
+ */
+    public void skipBits(int n) 
+    {
+	bitcount -= n;
+	bitsread += n;
+    }
+
+/**
+ * Write len whole bytes from b, starting at b[off], to an output file.
+ * The output must be at a byte boundary.  The bytes are copied to the
+ * output buffer as they are instead of going through the bit register.
+ * @param b The bytes to write
+ * @param off The first index of b to write
+ * @param len The number of bytes to write
+ */
+    public void writeBytes(byte[] b, int off, int len) 
+    {
+	Assert.notFalse(!inputFile,"Can't write to an input file");
+	Assert.notFalse(bitcount % 8 == 0,"Bytes must be written at a byte boundary");
+	for (int shift = bitcount - 8; shift >= 0; shift -= 8) 
+        {
+	    if (bytelen == bytes.length) 
+            {
+		flushBuffer();
+	    }
+	    bytes[bytelen++] = (byte) (bitbuf >>> shift);
+	}
+	bitbuf = 0;
+	bitcount = 0;
+	total_bits += 8 * len;
+	while (len > 0) 
+        {
+	    if (bytelen == bytes.length) 
+            {
+		flushBuffer();
+	    }
+	    int n = Math.min(len, bytes.length - bytelen);
+	    System.arraycopy(b, off, bytes, bytelen, n);
+	    bytelen += n;
+	    off += n;
+	    len -= n;
+	}
+    }
+
+/**
+ * Move to the next byte boundary: pad an output file with zeros, or
+ * skip the rest of the current byte of an input file.
+ */
+    public void alignToByte() 
+    {
+	if (inputFile) 
+        {
+	    int n = (int) ((8 - bitsread % 8) % 8);
+
+	    peekBits(n);
+	    skipBits(n);
+	}
+	else 
+        {
+	    writeBits(0, (int) ((8 - total_bits % 8) % 8));
+	}
+    }
+
+/**
+ * Read len whole bytes from an input file into b, starting at b[off].
+ * The input must be at a byte boundary.
+ * @param b The array to read into
+ * @param off The first index of b to fill
+ * @param len The number of bytes to read
+ */
+    public void readBytes(byte[] b, int off, int len) 
+    {
+	Assert.notFalse(inputFile,"Can't read from an output file");
+	Assert.notFalse(bitsread % 8 == 0,"Bytes must be read at a byte boundary");
+	Assert.notFalse(total_bits - bitsread >= 8L * len,"Read past end of file");
+	bitsread += 8 * len;
+	while (len > 0 && bitcount >= 8) 
+        {
+	    bitcount -= 8;
+	    b[off++] = (byte) (bitbuf >>> bitcount);
+	    len--;
+	}
+	try 
+        {
+	    while (len > 0) 
+            {
+		if (bytepos == bytelen) 
+                {
+		    bytelen = fillBytes();
+		    bytepos = 0;
+		    Assert.notFalse(bytelen > 0,"Read past end of file");
+		}
+		int n = Math.min(len, bytelen - bytepos);
+		System.arraycopy(bytes, bytepos, b, off, n);
+		bytepos += n;
+		off += n;
+		len -= n;
+	    }
+	} 
+        catch (Exception e) 
+        {
+	    System.out.println(e.getMessage());
+	    System.exit(0);
+	}
+    }
+
+/**
+ * Count the time since start as I/O wait, if metrics are kept.
+ * @param start The System.nanoTime() the read or write started at
+ */
+    private void ioWait(long start) 
+    {
+	if (metrics != null) 
+        {
+	    metrics.add(Metrics.Phase.IO, System.nanoTime() - start);
+	}
+    }
+
+/**
+ * Keep track of the time spent reading or writing the file.
+ * @param metrics The metrics to add the I/O wait to
+ */
+    public void setMetrics(Metrics metrics) 
+    {
+	this.metrics = metrics;
+    }
+
+/**
+ * Returns the number of bits of an input file that have not been read yet.
+ * @return The number of unread bits
+ */
+    public long bitsRemaining() 
+    {
+	return total_bits - bitsread;
+    }
+
+/**
+ * Fill the byte buffer with the next chunk of an input file.  Mapped
+ * files copy from the current window, mapping the next window of up
+ * to TextFile.WINDOW_SIZE bytes when it runs out, instead of making a
+ * read call.
+ * @return The number of bytes in the buffer, 0 at the end of the file
+ */
+    private int fillBytes() throws IOException 
+    {
+	if (!mapped) 
+        {
+	    long start = System.nanoTime();
+	    int n = Math.max(file.read(bytes, 0, bytes.length), 0);
+	    ioWait(start);
+	    return n;
+	}
+	if (window == null || !window.hasRemaining()) 
+        {
+	    long size = Math.min(TextFile.WINDOW_SIZE, file.length() - mapped_end);
+	    if (size <= 0) 
+            {
+		return 0;
+	    }
+	    window = file.getChannel().map(FileChannel.MapMode.READ_ONLY, mapped_end, size);
+	    mapped_end += size;
+	}
+	int n = Math.min(bytes.length, window.remaining());
+	window.get(bytes, 0, n);
+	return n;
+    }
+
+/**
+ * Top up the bit register a byte at a time until it holds more than
+ * 56 bits, reading the next chunk of the file whenever the byte buffer
+ * runs dry.
+ */
+    private void refill() 
+    {
+	try 
+        {
+	    while (bitcount <= 56) 
+            {
+		if (bytepos == bytelen) 
+                {
+		    bytelen = fillBytes();
+		    bytepos = 0;
+		}
+		int b = bytepos < bytelen ? bytes[bytepos++] & 0xFF : 0;
+		bitbuf = (bitbuf << 8) | b;
+		bitcount += 8;
+	    }
+	} 
+        catch (Exception e) 
+        {
+	    System.out.println(e.getMessage());
+	    System.exit(0);
+	}
+    }
+
+/**
+ * Close the file (works for input and output files).  Output files will
+ * not be properly written to disk if this method is not called.
+ */    
+    public void close() {
+	try 
+        {
+	    if (!inputFile)  
+            {
+		/* pad the last partial byte with zeros */
+		bitbuf <<= (8 - bitcount % 8) % 8;
+		for (int shift = (bitcount + 7) / 8 * 8 - 8; shift >= 0; shift -= 8) 
+                {
+		    if (bytelen == bytes.length) 
+                    {
+			flushBuffer();
+		    }
+		    bytes[bytelen++] = (byte) (bitbuf >>> shift);
+		}
+		flushBuffer();
+		if (total_bits > Integer.MAX_VALUE) 
+                {
+		    /* too many bits for the int header: put them at the end */
+		    file.seek(file.length());
+		    file.writeLong(total_bits);
+		    file.seek(0);
+		    file.writeInt(LONG_TRAILER);
+		}
+		else 
+                {
+		    file.seek(0);
+		    file.writeInt((int) total_bits);
+		}
+	    }
+	    file.close();
+	} 
+        catch (Exception e) 
+        {
+	    System.out.println(e.getMessage());
+	    System.exit(0);
+	}
+	
+    }
+
+/**
+ * Reads the 'magic number' used for recognizing files that this
+ * compressing scheme made: an 'H' followed by a character naming the
+ * format.  "HF" files store the tree in preorder, "HC" files store the
+ * code length of each character, "HB" files hold independent blocks,
+ * "HA" files are coded adaptively, "HD" files name a trained dictionary,
+ * "HT" files are dictionaries, "HS" files are stored as they are,
+ * "HI" files split their canonical codes into interleaved substreams
+ * and "HO" files code each character in the context of the previous one.
+ * @return the format character, or '\0' if the file does not start with 'H'
+ */
+    public char readMagicNumber() {
+    	if (bitsRemaining() < 16 || readChar() != 'H') {
+    		return '\0';
+    	}
+    	
+    	return readChar();
+    }
+
+/**
+ * Reads the tree from the binary code in preorder traversal into tree.
+ * A 1-true is a leaf followed by its character, a 0-false an internal node.
+ * A file that ends before the tree, written for an empty input before
+ * empty trees were written as a lone leaf, gives an empty tree.
+ * @param tree the tree to fill, cleared first
+ */
+    public void buildTree(HuffmanTree tree) {
+    	tree.clear();
+    	if (!EndOfFile()) {
+    		tree.read(this);
+    	}
+    }
+  
+    private static final int BUFFER_SIZE = 1 << 16;
+    /* a bit count can't be negative, so -2 marks the 64-bit count at the end */
+    static final int LONG_TRAILER = -2;
+
+	private boolean inputFile;
+    private RandomAccessFile file;
+    private long bitbuf;
+    private int bitcount;
+    private byte[] bytes;
+    private int bytepos;
+    private int bytelen;
+    private long total_bits;
+    private long bitsread;
+    private boolean mapped;
+    private MappedByteBuffer window;
+    private Metrics metrics;
+    private long mapped_end;
+}
\ No newline at end of file
@@ -0,0 +1,23 @@
+package huffman;
+
+/**
+ * A source of bits that can be looked at ahead of consuming them. Implemented
+ * by BinaryFile for files and by BitReader for blocks held in memory, so the
+ * decoder and the code length header work on both.
+ */
+public interface BitInput {
+
+	/**
+	 * Look at the next n bits without consuming them. Bits past the end read
+	 * as zeros.
+	 * @param n The number of bits to look at, from 0 to 56
+	 * @return The next n bits, right-aligned, most significant bit first
+	 */
+	long peekBits(int n);
+
+	/**
+	 * Consume n bits that have already been looked at with peekBits.
+	 * @param n The number of bits to consume
+	 */
+	void skipBits(int n);
+}
@@ -0,0 +1,16 @@
+package huffman;
+
+/**
+ * A sink for bits. Implemented by BinaryFile for files and by BitWriter for
+ * blocks built in memory, so the encoder and the code length header work on
+ * both.
+ */
+public interface BitOutput {
+
+	/**
+	 * Write the low len bits of code, most significant bit first.
+	 * @param code The bits to write, right-aligned
+	 * @param len The number of bits to write, from 0 to 64
+	 */
+	void writeBits(long code, int len);
+}
@@ -0,0 +1,60 @@
+package huffman;
+
+/**
+ * Reads bits from a byte array in memory through a 64-bit register, like
+ * BinaryFile does for files. Bits past the end of the array read as zeros.
+ */
+public class BitReader implements BitInput {
+	private byte bytes[];
+	private int position;
+	private int end;
+	private long bitbuf;
+	private int bitcount;
+
+	/**
+	 * Creates a reader over bytes[off .. off + len - 1].
+	 * @param bytes
+	 * @param off
+	 * @param len
+	 */
+	public BitReader(byte bytes[], int off, int len) {
+		this.bytes = bytes;
+		this.position = off;
+		this.end = off + len;
+		this.bitbuf = 0;
+		this.bitcount = 0;
+	}
+
+	@Override
+	public long peekBits(int n) {
+		if (bitcount < n) {
+			refill();
+		}
+		return (bitbuf >>> (bitcount - n)) & ((1L << n) - 1);
+	}
+
+	@Override
+	public void skipBits(int n) {
+		bitcount -= n;
+	}
+
+	/**
+	 * Tops up the register until it holds more than 56 bits.
+	 */
+	private void refill() {
+		if (position + 8 <= end) {
+			// whole bytes to fill the register up to 57..64 bits in one go
+			int count = (64 - bitcount) >>> 3;
+			for (int i = 0; i < count; i++) {
+				bitbuf = (bitbuf << 8) | (bytes[position++] & 0xFF);
+			}
+			bitcount += count << 3;
+			return;
+		}
+		while (bitcount <= 56) {
+			int b = position < end ? bytes[position++] & 0xFF : 0;
+			bitbuf = (bitbuf << 8) | b;
+			bitcount += 8;
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package huffman;
+
+import java.util.Arrays;
+
+/**
+ * Writes bits into a growing byte array in memory. Bits are packed into a
+ * 64-bit register and moved to the array 8 bytes at a time, like BinaryFile
+ * does for files.
+ */
+public class BitWriter implements BitOutput {
+	private byte bytes[];
+	private int length;
+	private long bitbuf;
+	private int bitcount;
+
+	/**
+	 * Creates a writer with room for about capacity bytes before it has to grow.
+	 * @param capacity
+	 */
+	public BitWriter(int capacity) {
+		this.bytes = new byte[Math.max(capacity, 16)];
+		this.length = 0;
+		this.bitbuf = 0;
+		this.bitcount = 0;
+	}
+
+	@Override
+	public void writeBits(long code, int len) {
+		int free = 64 - bitcount;
+
+		if (len < free) {
+			bitbuf = (bitbuf << len) | (code & ((1L << len) - 1));
+			bitcount += len;
+			return;
+		}
+		int rest = len - free;
+		bitbuf = (bitbuf << free) | ((code >>> rest) & (-1L >>> bitcount));
+		if (length + 8 > bytes.length) {
+			bytes = Arrays.copyOf(bytes, bytes.length * 2);
+		}
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			bytes[length++] = (byte) (bitbuf >>> shift);
+		}
+		bitbuf = rest == 0 ? 0 : code & (-1L >>> (64 - rest));
+		bitcount = rest;
+	}
+
+	/**
+	 * Writes whole bytes. Only valid at a byte boundary.
+	 * @param b
+	 * @param off
+	 * @param len
+	 */
+	public void writeBytes(byte b[], int off, int len) {
+		Assert.notFalse(bitcount % 8 == 0, "Bytes must be written at a byte boundary");
+		flush();
+		if (length + len > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + len));
+		}
+		System.arraycopy(b, off, bytes, length, len);
+		length += len;
+	}
+
+	/**
+	 * Pads the last partial byte with zeros and moves the register to the array.
+	 */
+	public void flush() {
+		if (length + 8 > bytes.length) {
+			bytes = Arrays.copyOf(bytes, bytes.length * 2);
+		}
+		bitbuf <<= (8 - bitcount % 8) % 8;
+		for (int shift = (bitcount + 7) / 8 * 8 - 8; shift >= 0; shift -= 8) {
+			bytes[length++] = (byte) (bitbuf >>> shift);
+		}
+		bitbuf = 0;
+		bitcount = 0;
+	}
+
+	/**
+	 * Gets the array the bits were written to. Only the first length() bytes
+	 * are used, and only after flush().
+	 * @return bytes
+	 */
+	public byte[] getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Gets the number of bytes written so far, not counting the register.
+	 * @return length
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Starts over, keeping the array.
+	 */
+	public void reset() {
+		length = 0;
+		bitbuf = 0;
+		bitcount = 0;
+	}
+}
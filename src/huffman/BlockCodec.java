@@ -0,0 +1,346 @@
+package huffman;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Block-based format ("HB"). The input is split into blocks that are
+ * compressed independently, each with its own canonical code, so a pool of
+ * threads can encode or decode many blocks at once while the blocks are still
+ * written out in order.
+ *
+ * Layout after the magic number: the block size (32 bits), then for each block
+ * its original length (32 bits), the length of its payload in bytes (32 bits)
+ * and the payload: a code length header followed by the encoded characters,
+ * padded to a whole byte. A block with original length 0 ends the file.
+ *
+ * Blocks that would not get smaller are stored instead: their payload is a
+ * STORED byte followed by the block as it is. A code length header never
+ * starts with that byte, since it starts with the longest code length. Most
+ * such blocks are spotted from the entropy of their byte counts, before any
+ * code is built.
+ *
+ * After the end marker, compress writes an index for random access: for each
+ * block, and then for the end marker, the offset of its first byte in the
+ * uncompressed data (64 bits) and the offset of its header from the magic
+ * number (64 bits); then the number of entries (32 bits) and INDEX_MAGIC.
+ * Readers that stop at the end marker never see it; SeekableFile uses it to
+ * decode only the blocks a range of bytes falls in.
+ * HuffmanOutputStream and HuffmanInputStream write and read the same layout
+ * on plain streams, without the index.
+ */
+public class BlockCodec {
+	public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+	public static final int MIN_BLOCK_SIZE = 1 << 10;
+	/** "HB" as BinaryFile.writeChar stores it, least significant bit first. */
+	public static final byte MAGIC[] = { (byte) (Integer.reverse('H') >>> 24), (byte) (Integer.reverse('B') >>> 24) };
+	/** First byte of the payload of a stored block. */
+	public static final int STORED = 0;
+	/** Last 32 bits of a file with an index: "HBIX". */
+	public static final int INDEX_MAGIC = 0x48424958;
+
+	private int blockSize;
+	private int maxCodeLength;
+	private int threads;
+	private long originalBytes;
+	private long compressedBytes;
+	private int blocks;
+	private int storedBlocks;
+	private DecoderCache decoders;
+	private long index[];
+
+	public BlockCodec(int blockSize, int maxCodeLength, int threads) {
+		Assert.notFalse(blockSize >= MIN_BLOCK_SIZE, "Block size must be at least " + MIN_BLOCK_SIZE + " bytes");
+		Assert.notFalse(threads >= 1, "Need at least one thread");
+		CodeLengths.checkLimit(maxCodeLength);
+		this.blockSize = blockSize;
+		this.maxCodeLength = maxCodeLength;
+		this.threads = threads;
+		this.decoders = new DecoderCache(DecoderCache.DEFAULT_CAPACITY);
+		this.index = new long[64];
+	}
+
+	public long getOriginalBytes() {
+		return originalBytes;
+	}
+
+	public long getCompressedBytes() {
+		return compressedBytes;
+	}
+
+	public int getBlocks() {
+		return blocks;
+	}
+
+	public int getStoredBlocks() {
+		return storedBlocks;
+	}
+
+	public DecoderCache getDecoderCache() {
+		return decoders;
+	}
+
+	/**
+	 * Shares a decoder cache with other codecs, so blocks of different files
+	 * that use the same code table share a decoder too.
+	 * @param decoders
+	 */
+	public void setDecoderCache(DecoderCache decoders) {
+		this.decoders = decoders;
+	}
+
+	/**
+	 * Compresses one block: counts it, builds a length-limited canonical code
+	 * and encodes it. A block whose entropy is too high, or whose code would
+	 * not make it smaller, is stored instead.
+	 * @param src
+	 * @param off
+	 * @param len
+	 * @param maxCodeLength
+	 * @return the payload; its length is the length of the writer
+	 */
+	public static BitWriter encodeBlock(byte src[], int off, int len, int maxCodeLength) {
+		long frequency[] = new long[256];
+
+		FrequencyCounter.count(src, off, len, frequency);
+		if (FrequencyCounter.entropy(frequency) >= FrequencyCounter.INCOMPRESSIBLE_ENTROPY) {
+			return storeBlock(src, off, len);
+		}
+		int lengths[] = CodeLengths.limited(frequency, maxCodeLength);
+		long bits = CodeLengths.headerBits(lengths);
+
+		for (int c = 0; c < lengths.length; c++) {
+			bits += frequency[c] * lengths[c];
+		}
+		if (bits >= 8L * len) {
+			return storeBlock(src, off, len);
+		}
+
+		long codes[] = CodeLengths.canonicalCodes(lengths);
+		BitWriter out = new BitWriter(len / 2 + 64);
+
+		CodeLengths.write(out, lengths);
+		for (int i = off; i < off + len; i++) {
+			int c = src[i] & 0xFF;
+			out.writeBits(codes[c], lengths[c]);
+		}
+		out.flush();
+		return out;
+	}
+
+	/**
+	 * Stores one block as it is.
+	 * @param src
+	 * @param off
+	 * @param len
+	 * @return the payload
+	 */
+	private static BitWriter storeBlock(byte src[], int off, int len) {
+		BitWriter out = new BitWriter(len + 16);
+
+		out.writeBits(STORED, 8);
+		out.writeBytes(src, off, len);
+		return out;
+	}
+
+	/**
+	 * Decompresses one block payload into dst, with a decoder from the cache.
+	 * @param payload
+	 * @param payloadLength
+	 * @param dst
+	 * @param off
+	 * @param len original length of the block
+	 * @param decoders
+	 */
+	public static void decodeBlock(byte payload[], int payloadLength, byte dst[], int off, int len,
+			DecoderCache decoders) {
+		if (payload[0] == STORED) {
+			Assert.notFalse(payloadLength == len + 1, "Corrupt stored block");
+			System.arraycopy(payload, 1, dst, off, len);
+			return;
+		}
+
+		BitReader in = new BitReader(payload, 0, payloadLength);
+
+		decoders.readLengths(in).decode(in, dst, off, len);
+	}
+
+	/**
+	 * Compresses the text file into the binary file, block by block. Up to
+	 * twice as many blocks as there are threads are in flight at once; the
+	 * oldest one is always written first, so the output stays in order. The
+	 * index follows the end marker.
+	 * @param iFile
+	 * @param oFile
+	 */
+	public void compress(TextFile iFile, BinaryFile oFile) {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		ArrayDeque<Future<EncodedBlock>> pending = new ArrayDeque<Future<EncodedBlock>>();
+
+		oFile.writeChar('H'); oFile.writeChar('B');
+		oFile.writeBits(blockSize, 32);
+		compressedBytes += 6;
+		try {
+			while (true) {
+				byte block[] = new byte[blockSize];
+				int n = readFully(iFile, block);
+
+				if (n == 0) {
+					break;
+				}
+				pending.add(pool.submit(() -> new EncodedBlock(n, encodeBlock(block, 0, n, maxCodeLength))));
+				if (pending.size() >= 2 * threads) {
+					writeBlock(oFile, pending.poll().get());
+				}
+			}
+			while (!pending.isEmpty()) {
+				writeBlock(oFile, pending.poll().get());
+			}
+		}
+		catch (Exception e) {
+			System.out.println(e.getMessage());
+			System.exit(0);
+		}
+		finally {
+			pool.shutdown();
+		}
+		addToIndex();
+		oFile.writeBits(0, 32);
+		compressedBytes += 4;
+		writeIndex(oFile);
+	}
+
+	/**
+	 * Records where the next block starts, in the uncompressed data and in
+	 * the compressed file.
+	 */
+	private void addToIndex() {
+		if (2 * blocks + 2 > index.length) {
+			index = Arrays.copyOf(index, 2 * index.length);
+		}
+		index[2 * blocks] = originalBytes;
+		index[2 * blocks + 1] = compressedBytes;
+	}
+
+	/**
+	 * Writes the index: an entry per block and one for the end marker, their
+	 * number and INDEX_MAGIC.
+	 * @param oFile
+	 */
+	private void writeIndex(BinaryFile oFile) {
+		for (int i = 0; i < 2 * blocks + 2; i++) {
+			oFile.writeBits(index[i], 64);
+		}
+		oFile.writeBits(blocks + 1, 32);
+		oFile.writeBits(INDEX_MAGIC, 32);
+		compressedBytes += 16L * (blocks + 1) + 8;
+	}
+
+	/**
+	 * Writes one encoded block: original length, payload length and payload.
+	 * @param oFile
+	 * @param block
+	 */
+	private void writeBlock(BinaryFile oFile, EncodedBlock block) {
+		addToIndex();
+		oFile.writeBits(block.original, 32);
+		oFile.writeBits(block.payload.length(), 32);
+		oFile.writeBytes(block.payload.getBytes(), 0, block.payload.length());
+		originalBytes += block.original;
+		compressedBytes += 8 + block.payload.length();
+		blocks++;
+		if (block.payload.getBytes()[0] == STORED) {
+			storedBlocks++;
+		}
+	}
+
+	/**
+	 * Decompresses the blocks that follow the "HB" magic number into the text
+	 * file. Payloads are read in order and decoded on the pool; decoded blocks
+	 * are written in the same order.
+	 * @param iFile
+	 * @param oFile
+	 */
+	public void decompress(BinaryFile iFile, TextFile oFile) {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		ArrayDeque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+		int size = (int) iFile.peekBits(32);
+
+		iFile.skipBits(32);
+		compressedBytes += 6 + 4;
+		Assert.notFalse(size >= MIN_BLOCK_SIZE, "Corrupt block header");
+		try {
+			while (true) {
+				int original = (int) iFile.peekBits(32);
+				iFile.skipBits(32);
+				if (original == 0) {
+					break;
+				}
+				int length = (int) iFile.peekBits(32);
+				iFile.skipBits(32);
+				Assert.notFalse(original > 0 && original <= size && length >= 0, "Corrupt block header");
+
+				byte payload[] = new byte[length];
+				iFile.readBytes(payload, 0, length);
+				if (length > 0 && payload[0] == STORED) {
+					storedBlocks++;
+				}
+				pending.add(pool.submit(() -> {
+					byte block[] = new byte[original];
+					decodeBlock(payload, length, block, 0, original, decoders);
+					return block;
+				}));
+				originalBytes += original;
+				compressedBytes += 8 + length;
+				blocks++;
+				if (pending.size() >= 2 * threads) {
+					byte block[] = pending.poll().get();
+					oFile.write(block, 0, block.length);
+				}
+			}
+			while (!pending.isEmpty()) {
+				byte block[] = pending.poll().get();
+				oFile.write(block, 0, block.length);
+			}
+		}
+		catch (Exception e) {
+			System.out.println(e.getMessage());
+			System.exit(0);
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Reads until the block is full or the file ends.
+	 * @param iFile
+	 * @param block
+	 * @return number of bytes read
+	 */
+	private static int readFully(TextFile iFile, byte block[]) {
+		int total = 0;
+		int n;
+
+		while (total < block.length && (n = iFile.read(block, total, block.length - total)) > 0) {
+			total += n;
+		}
+		return total;
+	}
+
+	/**
+	 * A compressed block waiting to be written.
+	 */
+	private static class EncodedBlock {
+		private final int original;
+		private final BitWriter payload;
+
+		public EncodedBlock(int original, BitWriter payload) {
+			this.original = original;
+			this.payload = payload;
+		}
+	}
+}
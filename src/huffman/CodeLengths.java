@@ -0,0 +1,371 @@
+package huffman;
+
+import java.util.Arrays;
+
+/**
+ * Canonical Huffman codes. A canonical code is fully described by the code
+ * length of every character: codes are handed out in order of length, and
+ * within one length in order of the character, each one being the previous
+ * code plus one. This lets the compressed file store only the lengths instead
+ * of the shape of the tree.
+ *
+ * Header layout, as written by {@link #write(BitOutput, int[])}:
+ * 8 bits for the longest code length L, 9 bits for the number of characters
+ * that have a code, then for each of them in order the distance from the
+ * previous one as an Elias gamma code, followed by its length in as many bits
+ * as L needs. Characters that appear in text tend to sit close together, so
+ * most distances take one to three bits.
+ */
+public class CodeLengths {
+	/** Highest code length limit ("-m") an encoder takes. */
+	public static final int MAX_LIMIT = 32;
+
+	/**
+	 * Checks a code length limit before anything is encoded with it. Limits
+	 * go up to MAX_LIMIT, well inside what HuffmanDecoder can decode.
+	 * @param maxLength
+	 */
+	public static void checkLimit(int maxLength) {
+		Assert.notFalse(maxLength >= 1 && maxLength <= MAX_LIMIT,
+				"Code length limit must be between 1 and " + MAX_LIMIT);
+	}
+
+	/**
+	 * Gets the code length of every leaf of the tree, indexed by character.
+	 * A tree that is a single leaf still gets a 1-bit code.
+	 * @param tree
+	 * @return lengths
+	 */
+	public static int[] fromTree(HuffmanTree tree) {
+		int lengths[] = new int[256];
+
+		tree.codes(new long[256], lengths);
+		return lengths;
+	}
+
+	/**
+	 * Computes optimal (Huffman) code lengths straight from the frequencies,
+	 * without building a tree. The characters are sorted by frequency and the
+	 * tree is then built and measured in place inside one array of longs, in
+	 * linear time (Moffat and Katajainen's method):
+	 * first every slot becomes the weight of a merged node and then the index
+	 * of its parent, then the depth of each internal node, and finally the
+	 * depth of each leaf.
+	 * @param frequency
+	 * @return lengths, indexed by character
+	 */
+	public static int[] fromFrequencies(long frequency[]) {
+		int lengths[] = new int[frequency.length];
+		long sorted[] = new long[frequency.length];
+		int n = 0;
+
+		for (int c = 0; c < frequency.length; c++) {
+			if (frequency[c] > 0) {
+				sorted[n++] = (frequency[c] << 8) | c;
+			}
+		}
+		if (n == 0) {
+			return lengths;
+		}
+		if (n == 1) {
+			lengths[(int) (sorted[0] & 0xFF)] = 1;
+			return lengths;
+		}
+		Arrays.sort(sorted, 0, n);
+
+		long a[] = new long[n];
+		for (int i = 0; i < n; i++) {
+			a[i] = sorted[i] >>> 8;
+		}
+
+		// merge: a[next] gets the weight of the next internal node, and the
+		// internal nodes it absorbs get its index as their parent
+		a[0] += a[1];
+		int root = 0;
+		int leaf = 2;
+		for (int next = 1; next < n - 1; next++) {
+			if (leaf >= n || a[root] < a[leaf]) {
+				a[next] = a[root];
+				a[root++] = next;
+			}
+			else {
+				a[next] = a[leaf++];
+			}
+			if (leaf >= n || (root < next && a[root] < a[leaf])) {
+				a[next] += a[root];
+				a[root++] = next;
+			}
+			else {
+				a[next] += a[leaf++];
+			}
+		}
+
+		// depth of every internal node, from the root down
+		a[n - 2] = 0;
+		for (int next = n - 3; next >= 0; next--) {
+			a[next] = a[(int) a[next]] + 1;
+		}
+
+		// depth of every leaf: each level has twice the used internal nodes of the last
+		int available = 1;
+		int used = 0;
+		int depth = 0;
+		root = n - 2;
+		int next = n - 1;
+		while (available > 0) {
+			while (root >= 0 && a[root] == depth) {
+				used++;
+				root--;
+			}
+			while (available > used) {
+				a[next--] = depth;
+				available--;
+			}
+			available = 2 * used;
+			depth++;
+			used = 0;
+		}
+
+		for (int i = 0; i < n; i++) {
+			lengths[(int) (sorted[i] & 0xFF)] = (int) a[i];
+		}
+		return lengths;
+	}
+
+	/**
+	 * Computes the best code lengths that are no longer than maxLength bits.
+	 * If the Huffman code already fits it is returned as is; otherwise the
+	 * package-merge algorithm is used. Every level from the deepest one up
+	 * holds the characters sorted by frequency, merged with "packages" that
+	 * pair up neighbours of the level below. Taking the 2n - 2 cheapest items
+	 * of the top level, and the items they were packaged from, gives each
+	 * character a length equal to the number of times it was taken.
+	 * @param frequency
+	 * @param maxLength
+	 * @return lengths, indexed by character
+	 */
+	public static int[] limited(long frequency[], int maxLength) {
+		int lengths[] = fromFrequencies(frequency);
+
+		if (maxLength(lengths) <= maxLength) {
+			return lengths;
+		}
+
+		long sorted[] = new long[frequency.length];
+		int n = 0;
+		for (int c = 0; c < frequency.length; c++) {
+			if (frequency[c] > 0) {
+				sorted[n++] = (frequency[c] << 8) | c;
+			}
+		}
+		Assert.notFalse(n <= (1L << maxLength), "Too many characters for a "
+				+ maxLength + "-bit code length limit");
+		Arrays.sort(sorted, 0, n);
+
+		// level 0 is the deepest; leaf[level][i] is the leaf taken, or -1 for a package
+		long weight[][] = new long[maxLength][2 * n];
+		int leaf[][] = new int[maxLength][2 * n];
+		int count[] = new int[maxLength];
+
+		for (int i = 0; i < n; i++) {
+			weight[0][i] = sorted[i] >>> 8;
+			leaf[0][i] = i;
+		}
+		count[0] = n;
+
+		for (int level = 1; level < maxLength; level++) {
+			int packages = count[level - 1] / 2;
+			int p = 0;
+			int l = 0;
+
+			while (p < packages || l < n) {
+				long packaged = p < packages
+						? weight[level - 1][2 * p] + weight[level - 1][2 * p + 1] : Long.MAX_VALUE;
+				int k = count[level]++;
+
+				if (l < n && (sorted[l] >>> 8) <= packaged) {
+					weight[level][k] = sorted[l] >>> 8;
+					leaf[level][k] = l++;
+				}
+				else {
+					weight[level][k] = packaged;
+					leaf[level][k] = -1;
+					p++;
+				}
+			}
+		}
+
+		int depth[] = new int[n];
+		int take = 2 * n - 2;
+		for (int level = maxLength - 1; level >= 0; level--) {
+			int packages = 0;
+
+			for (int i = 0; i < take; i++) {
+				if (leaf[level][i] >= 0) {
+					depth[leaf[level][i]]++;
+				}
+				else {
+					packages++;
+				}
+			}
+			take = 2 * packages;
+		}
+
+		Arrays.fill(lengths, 0);
+		for (int i = 0; i < n; i++) {
+			lengths[(int) (sorted[i] & 0xFF)] = depth[i];
+		}
+		return lengths;
+	}
+
+	/**
+	 * Assigns canonical codes to the given code lengths.
+	 * @param lengths
+	 * @return codes, right-aligned, indexed by character
+	 */
+	public static long[] canonicalCodes(int lengths[]) {
+		int maxLength = maxLength(lengths);
+		int count[] = new int[maxLength + 1];
+		long next[] = new long[maxLength + 1];
+		long codes[] = new long[lengths.length];
+
+		for (int c = 0; c < lengths.length; c++) {
+			count[lengths[c]]++;
+		}
+		count[0] = 0;
+
+		long code = 0;
+		for (int length = 1; length <= maxLength; length++) {
+			code = (code + count[length - 1]) << 1;
+			next[length] = code;
+		}
+
+		for (int c = 0; c < lengths.length; c++) {
+			if (lengths[c] > 0) {
+				codes[c] = next[lengths[c]]++;
+			}
+		}
+		return codes;
+	}
+
+	/**
+	 * Gets the longest code length.
+	 * @param lengths
+	 * @return maximum length
+	 */
+	public static int maxLength(int lengths[]) {
+		int max = 0;
+
+		for (int length : lengths) {
+			max = Math.max(max, length);
+		}
+		return max;
+	}
+
+	/**
+	 * Size of the code length header in bits.
+	 * @param lengths
+	 * @return size of the header
+	 */
+	public static int headerBits(int lengths[]) {
+		int width = bitsFor(maxLength(lengths));
+		int size = 8 + 9;
+		int previous = -1;
+
+		for (int c = 0; c < lengths.length; c++) {
+			if (lengths[c] > 0) {
+				size += 2 * bitsFor(c - previous) - 1 + width;
+				previous = c;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Writes the code length header.
+	 * @param file
+	 * @param lengths
+	 */
+	public static void write(BitOutput file, int lengths[]) {
+		int maxLength = maxLength(lengths);
+		int width = bitsFor(maxLength);
+		int count = 0;
+		int previous = -1;
+
+		for (int length : lengths) {
+			if (length > 0) {
+				count++;
+			}
+		}
+
+		file.writeBits(maxLength, 8);
+		file.writeBits(count, 9);
+		for (int c = 0; c < lengths.length; c++) {
+			if (lengths[c] > 0) {
+				// gamma code: as many zeros as the distance has bits after the first
+				file.writeBits(c - previous, 2 * bitsFor(c - previous) - 1);
+				file.writeBits(lengths[c], width);
+				previous = c;
+			}
+		}
+	}
+
+	/**
+	 * Reads a code length header written by {@link #write(BitOutput, int[])}.
+	 * @param file
+	 * @return lengths
+	 */
+	public static int[] read(BitInput file) {
+		int lengths[] = new int[256];
+		int width = bitsFor((int) file.peekBits(8));
+		int previous = -1;
+
+		file.skipBits(8);
+		int count = (int) file.peekBits(9);
+		file.skipBits(9);
+		for (int i = 0; i < count; i++) {
+			int zeros = 0;
+
+			while (file.peekBits(1) == 0) {
+				Assert.notFalse(zeros < 8, "Corrupt code length header");
+				file.skipBits(1);
+				zeros++;
+			}
+			file.skipBits(1);
+			int c = previous + (int) ((1L << zeros) | file.peekBits(zeros));
+			file.skipBits(zeros);
+			Assert.notFalse(c < lengths.length, "Corrupt code length header");
+			lengths[c] = (int) file.peekBits(width);
+			file.skipBits(width);
+			previous = c;
+		}
+		Assert.notFalse(fitsPrefixCode(lengths), "Corrupt code length header");
+		return lengths;
+	}
+
+	/**
+	 * Tests whether the lengths can be given prefix-free codes (Kraft inequality).
+	 * @param lengths
+	 * @return true if a prefix code with these lengths exists
+	 */
+	public static boolean fitsPrefixCode(int lengths[]) {
+		int maxLength = maxLength(lengths);
+		double sum = 0;
+
+		for (int length : lengths) {
+			if (length > 0) {
+				sum += Math.scalb(1.0, -length);
+			}
+		}
+		return maxLength <= HuffmanDecoder.MAX_CODE_LENGTH && sum <= 1.0;
+	}
+
+	/**
+	 * Number of bits needed to write the value n.
+	 * @param n
+	 * @return bits
+	 */
+	static int bitsFor(int n) {
+		return 32 - Integer.numberOfLeadingZeros(n);
+	}
+}
@@ -0,0 +1,612 @@
+package huffman;
+
+import java.nio.ByteBuffer;
+
+
+public class Compress {
+	public static final int DEFAULT_MAX_CODE_LENGTH = 15;
+	public static final int DEFAULT_SAMPLE_RATE = 8;
+	
+	private long frequency[];
+	private HuffmanTree tree;
+	private long codes[];
+	private int size;
+	private long compressedSize;
+	private byte block[];
+	private int lengths[];
+	private char format;
+	private int maxCodeLength;
+	private long unlimitedSize;
+	private int sampleRate;
+	private boolean verbose;
+	private Dictionary dictionary;
+	private BitWriter streams[];
+	private int counts[];
+	
+	public Compress () {
+		this.block = new byte[TextFile.DEFAULT_BUFFER_SIZE];
+		this.tree = new HuffmanTree();
+		this.frequency = new long[256];
+		this.codes = new long[256];
+		this.lengths = new int[256];
+		this.size = 0;
+		this.compressedSize = 0;
+		this.format = 'C';
+		this.maxCodeLength = DEFAULT_MAX_CODE_LENGTH;
+		this.sampleRate = 1;
+		this.counts = new int[FrequencyCounter.SCRATCH_SIZE];
+	}
+	
+	/**
+	 * Gets the Huffman tree.
+	 * @return tree
+	 */
+	public HuffmanTree getTree() {
+		return tree;
+	}
+	
+	
+	public long[] getFrequency() {
+		return frequency;
+	}
+
+	/**
+	 * Sets the frequencies as if they had been counted, so a tree can be built
+	 * from frequencies known in advance.
+	 * @param frequency
+	 */
+	public void setFrequency(long[] frequency) {
+		this.frequency = frequency;
+		countCharacters();
+	}
+
+	/**
+	 * Gets the code of every character, right-aligned. Only the low
+	 * getLengths()[c] bits of codes[c] are used.
+	 * @return codes
+	 */
+	public long[] getCodes() {
+		return codes;
+	}
+
+	public void setCodes(long[] codes) {
+		this.codes = codes;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public void setSize(int size) {
+		this.size = size;
+	}
+
+	public long getCompressedSize() {
+		return compressedSize;
+	}
+
+	public void setCompressedSize(long compressedSize) {
+		this.compressedSize = compressedSize;
+	}
+
+	/**
+	 * Gets the code length of every character.
+	 * @return lengths
+	 */
+	public int[] getLengths() {
+		return lengths;
+	}
+
+	/**
+	 * Gets the longest code length the canonical format may use.
+	 * @return maxCodeLength
+	 */
+	public int getMaxCodeLength() {
+		return maxCodeLength;
+	}
+
+	/**
+	 * Sets the longest code length the canonical format may use. Shorter limits
+	 * keep the decoder tables small at a (usually tiny) cost in compression.
+	 * @param maxCodeLength from 1 to CodeLengths.MAX_LIMIT
+	 */
+	public void setMaxCodeLength(int maxCodeLength) {
+		CodeLengths.checkLimit(maxCodeLength);
+		this.maxCodeLength = maxCodeLength;
+	}
+
+	/**
+	 * Makes compress count the real frequencies of a sampled file, so the
+	 * sizes printed for the "-v" flag are exact. Without it the estimate is
+	 * kept, which saves counting every block a second time.
+	 * @param verbose
+	 */
+	public void setVerbose(boolean verbose) {
+		this.verbose = verbose;
+	}
+
+	/**
+	 * Gets the sample rate the frequencies were estimated with, 1 if every
+	 * character was counted.
+	 * @return sampleRate
+	 */
+	public int getSampleRate() {
+		return sampleRate;
+	}
+
+	/**
+	 * Codes with a trained dictionary instead of the frequencies of the file,
+	 * so nothing has to be counted and the header is only the dictionary ID.
+	 * @param dictionary
+	 */
+	public void setDictionary(Dictionary dictionary) {
+		this.dictionary = dictionary;
+		this.lengths = dictionary.getLengths();
+		this.codes = dictionary.getCodes();
+		this.format = 'D';
+	}
+
+	/**
+	 * Gets the format written after 'H': 'C' for canonical codes with a code
+	 * length header, 'F' for the preorder tree header, 'D' for a dictionary,
+	 * 'I' for canonical codes in interleaved substreams.
+	 * @return format
+	 */
+	public char getFormat() {
+		return format;
+	}
+
+	/**
+	 * Sets the format written after 'H'.
+	 * @param format 'C', 'F' or 'I'
+	 */
+	public void setFormat(char format) {
+		Assert.notFalse(format == 'C' || format == 'F' || format == 'I', "Unknown format: " + format);
+		this.format = format;
+	}
+
+	/**
+	 * Size of the compressed file (in bits)
+	 * Adds up:
+	 * For each character c in the input file, (frequency of c) * size of the encoding for c
+	 * Size of the tree (1 bit for each internal node, 9 bits for each leaf,
+	 * or the code length header for the canonical format)
+	 * An extra 4 bytes (32 bits) for the dictionary ID of the "HD" format
+	 * An extra 2 bytes (16 bits) for the magic number
+	 * An extra 4 bytes (32 bits) for header information used in the BinaryFile class,
+	 * and 8 more for files whose bit count does not fit in it
+	 * For the "HI" format, the padding after the header and, for each chunk, its
+	 * length and jump table and the padding of its substreams, counted as 4 bits
+	 * each since that is the average
+	 * Compressed file size needs to be a multiple of 8 bits -- 
+	 * so the calculated binary file size has to be a multiple of 8
+	 * @return size of the compressed file
+	 */
+	public long calculateCompressedSize() {
+		compressedSize = 0;
+		countTreeCharacters();
+		if (format == 'C' || format == 'I') {
+			compressedSize += CodeLengths.headerBits(lengths);
+		}
+		if (format == 'I') {
+			long chunks = (calculateOriginalSize() / 8 + block.length - 1) / block.length;
+			
+			compressedSize += 7 + chunks * ((1 + HuffmanDecoder.STREAMS) * 32 + HuffmanDecoder.STREAMS * 4) + 32;
+		}
+		if (format == 'D') {
+			compressedSize += 32; // for the dictionary ID
+		}
+		compressedSize += 16; // for the magic number
+		compressedSize += BinaryFile.headerBits(compressedSize); // for head information
+		compressedSize += (8 - (compressedSize % 8));
+//		System.out.println(compressedSize);
+		return compressedSize;
+	}
+	
+	/**
+	 * Partly calculates the compression size.
+	 * Adds up:
+	 * For each character c in the input file, (frequency of c) * size of the encoding for c,
+	 * which is the dot product of the frequency and length arrays
+	 * Size of the tree (1 bit for each internal node, 9 bits for each leaf) for the "HF" format,
+	 * where a tree with n leaves has n - 1 internal nodes
+	 */
+	private void countTreeCharacters() {
+		int leaves = 0;
+		
+		compressedSize += dotProduct(lengths);
+		// a sampled tree also has leaves for characters the file turned out not to have
+		for (int i = 0; i < frequency.length; i++) {
+			if (frequency[i] > 0 || lengths[i] > 0) {
+				leaves++;
+			}
+		}
+		
+		if (format == 'F') {
+			// an empty tree is written as a lone leaf
+			leaves = Math.max(leaves, 1);
+			compressedSize += 9 * leaves + (leaves - 1);
+		}
+	}
+	
+	/**
+	 * Calculates the size of the original file
+	 * @return size - size of file
+	 */
+    public long calculateOriginalSize() {
+    	long size = 0;
+    	
+    	for (int i = 0; i < frequency.length; i++) {
+    		if (frequency[i] > 0) {
+    			size += frequency[i] * 8;
+    		}
+    	}
+    	
+//    	System.out.println(size);
+		return size;   	
+    }
+    
+    
+	/**
+	 * Creates an array of frequencies (ASCII 256 elements) where ASCII numbers are array indexes.
+	 * Every time a letter is encountered, its count is updated. The file is read a block
+	 * at a time into a reusable buffer, or scanned in place if it is memory-mapped.
+	 * @param file
+	 */
+	public void countFrequency(TextFile file) {
+		int n;
+		
+		if (file.isMapped()) {
+			ByteBuffer window;
+			
+			while ((window = file.nextWindow()) != null) {
+				FrequencyCounter.count(window, frequency, counts);
+			}
+		}
+		while ((n = file.read(block, 0, block.length)) > 0) {
+			FrequencyCounter.count(block, 0, n, frequency, counts);
+		}
+		
+		file.rewind();			
+		countCharacters();
+	}
+	
+	/**
+	 * Creates the array of frequencies like countFrequency, but splits the file into
+	 * ranges that are counted on several threads and merged at the end.
+	 * @param file
+	 * @param threads
+	 */
+	public void countFrequencyParallel(TextFile file, int threads) {
+		frequency = FrequencyCounter.countParallel(file.getChannel(), file.length(), threads, file.isMapped());
+		countCharacters();
+	}
+	
+	/**
+	 * Estimates the array of frequencies from every rate-th chunk of the file
+	 * instead of all of it, so building the tree costs a fraction of a pass.
+	 * The sampled counts are scaled up to the length of the file, and every
+	 * character gets a count of at least 1 so that it still has a code if it
+	 * shows up in a chunk that was skipped. With setVerbose, compress then
+	 * counts the real frequencies as it goes.
+	 * @param file
+	 * @param rate
+	 */
+	public void countFrequencySampled(TextFile file, int rate) {
+		long sample[] = FrequencyCounter.countSampled(file.getChannel(), file.length(), rate);
+		long sampled = 0;
+		
+		for (long count : sample) {
+			sampled += count;
+		}
+		for (int i = 0; i < frequency.length; i++) {
+			frequency[i] = sampled == 0 ? 1 : Math.max(1, Math.round((double) sample[i] * file.length() / sampled));
+		}
+		sampleRate = rate;
+		countCharacters();
+	}
+	
+	/**
+	 * Counts the characters that occur at least once.
+	 */
+	private void countCharacters() {
+		size = 0;
+		for (int i = 0; i < frequency.length; i++) {
+			if (frequency[i] > 0) {
+				size++;
+			}
+		}
+	}
+	
+	
+	/**
+	 * Makes a leaf of the tree for every character that occurs, with its
+	 * frequency, in order of increasing frequency.
+	 */
+	public void buildFrequencyArray() {
+		tree.addLeaves(frequency);
+	}
+	
+	
+	/**
+	 * Builds HuffmanTree from the leaves in linear time, with the two-queue
+	 * method of HuffmanTree.merge. The tree is kept in flat arrays that are
+	 * reused for every file.
+	 */
+	public void buildHuffmanTree() {
+		tree.merge();
+	}
+	
+		
+	/**
+	 * Builds a lookup table from the leaves of the tree. The leaves are nodes
+	 * with actual characters and frequencies, while the internal nodes contain
+	 * the sum of their children's frequencies. The path to a leaf is kept as
+	 * bits of a long (0 for left, 1 for right) together with its length.
+	 * A tree deeper than the decoder takes, which only inputs of hundreds of
+	 * gigabytes can give, is written as limited canonical codes ("HC") instead.
+	 */
+	public void buildLookUpTable() {
+		if (tree.depth() > HuffmanDecoder.MAX_CODE_LENGTH) {
+			format = 'C';
+			buildCanonicalTable();
+			return;
+		}
+		tree.codes(codes, lengths);
+	}
+	
+	/**
+	 * Builds a lookup table of canonical codes. The code lengths are computed
+	 * straight from the frequencies, without the tree, and are limited to
+	 * maxCodeLength bits; the codes themselves follow from the lengths, so the
+	 * file header only has to store the lengths.
+	 */
+	public void buildCanonicalTable() {
+		unlimitedSize = dotProduct(CodeLengths.fromFrequencies(frequency));
+		lengths = CodeLengths.limited(frequency, maxCodeLength);
+		codes = CodeLengths.canonicalCodes(lengths);
+	}
+	
+	/**
+	 * Number of bits the characters of the input take with the given code lengths.
+	 * @param lengths
+	 * @return size of the encoded characters in bits
+	 */
+	private long dotProduct(int lengths[]) {
+		long bits = 0;
+		
+		for (int i = 0; i < frequency.length; i++) {
+			bits += frequency[i] * lengths[i];
+		}
+		return bits;
+	}
+	
+	/**
+	 * Only possible if "-v" flag exists. Prints out:
+	 * The frequency of each character in the input file 
+	 * The Huffman tree
+	 * The Huffman codes for each character that has a code
+	 * The size of the uncompressed file and the size of the compressed file
+	 */
+	
+	public void printForC() {
+		System.out.println("THE FREQUENCY OF EACH CHARACTER IN THE INPUT FILE:");
+		tree.printFrequencies();
+		System.out.println();
+		System.out.println("THE HUFFMAN TREE:");
+		tree.print();
+		System.out.println();
+		System.out.println("THE HUFFMAN CODES FOR EACH CHARACTER THAT HAS A CODE:");
+		printLookUpTable();
+		System.out.println();
+		System.out.println("UNCOMPRESSED FILE SIZE: " + calculateOriginalSize() + " BITS");
+		System.out.println("COMPRESSED FILE SIZE: " + compressedSize + " BITS");
+		if (sampleRate > 1) {
+			System.out.println("FREQUENCIES SAMPLED FROM EVERY " + sampleRate + " CHUNKS OF "
+					+ FrequencyCounter.SAMPLE_CHUNK + " BYTES");
+		}
+		System.out.println("BITS PER SYMBOL: " + String.format("%.4f", bitsPerSymbol())
+				+ ", IDEAL " + String.format("%.4f", FrequencyCounter.entropy(frequency)));
+		if (format == 'C' || format == 'I') {
+			long cost = dotProduct(lengths) - unlimitedSize;
+			
+			System.out.println("CODE LENGTH LIMIT: " + maxCodeLength + " BITS, "
+					+ (sampleRate > 1 ? "WITH SAMPLING " : "") + "COSTING " + cost + " BITS ("
+					+ String.format("%.4f", unlimitedSize == 0 ? 0.0 : 100.0 * cost / unlimitedSize) + "%)");
+		}
+	}
+	
+	/**
+	 * Average code length of the characters of the file, without the header.
+	 * Only used for "-v" flag.
+	 * @return bits per symbol
+	 */
+	private double bitsPerSymbol() {
+		long symbols = calculateOriginalSize() / 8;
+		
+		return symbols == 0 ? 0.0 : (double) dotProduct(lengths) / symbols;
+	}
+	
+	/**
+	 * Prints the array - LookUpTable. Only used for "-v" flag.
+	 */
+	private void printLookUpTable() {
+		for (int i = 0; i < lengths.length; i ++) {
+			if (lengths[i] > 0) {
+				String bits = Long.toBinaryString(codes[i]);
+				System.out.println("char: " + i + "\t" + "binary code: "
+						+ "0".repeat(Math.max(lengths[i] - bits.length(), 0)) + bits);
+			}
+		}
+	}
+	
+	
+	/**
+	 * Tells whether the counted frequencies are too close to uniform for a
+	 * Huffman code to be worth building.
+	 * @return true if the entropy is at least FrequencyCounter.INCOMPRESSIBLE_ENTROPY
+	 */
+	public boolean isIncompressible() {
+		return FrequencyCounter.entropy(frequency) >= FrequencyCounter.INCOMPRESSIBLE_ENTROPY;
+	}
+
+	/**
+	 * Stores the file as it is, after an "HS" magic number, for input that
+	 * would not get smaller. Needs no frequencies, tree or codes.
+	 * @param iFile
+	 * @param oFile
+	 */
+	public void store(TextFile iFile, BinaryFile oFile) {
+		int n;
+
+		oFile.writeChar('H'); oFile.writeChar('S');
+		if (iFile.isMapped()) {
+			ByteBuffer window;
+
+			while ((window = iFile.nextWindow()) != null) {
+				while (window.hasRemaining()) {
+					n = Math.min(window.remaining(), block.length);
+					window.get(block, 0, n);
+					oFile.writeBytes(block, 0, n);
+				}
+			}
+		}
+		while ((n = iFile.read(block, 0, block.length)) > 0) {
+			oFile.writeBytes(block, 0, n);
+		}
+	}
+
+	/**
+	 * Copies the rest of an "HS" file, after its magic number, as it is.
+	 * @param iFile
+	 * @param oFile
+	 */
+	public static void restore(BinaryFile iFile, TextFile oFile) {
+		byte buffer[] = new byte[TextFile.DEFAULT_BUFFER_SIZE];
+		long remaining = iFile.bitsRemaining() / 8;
+
+		while (remaining > 0) {
+			int n = (int) Math.min(remaining, buffer.length);
+
+			iFile.readBytes(buffer, 0, n);
+			oFile.write(buffer, 0, n);
+			remaining -= n;
+		}
+	}
+
+	/**
+	 * Compresses the file by comparing the characters and the lookup table
+	 * binary representations. Done in a binary form. The header is either the
+	 * code lengths ("HC" and "HI"), the preorder tree ("HF") or the dictionary
+	 * ID ("HD"), depending on the format. The input is read a block at a time
+	 * into the same buffer used by countFrequency. If the frequencies were
+	 * sampled and setVerbose is on, the real ones are counted along the way
+	 * and replace the estimate at the end, so the sizes reported afterwards
+	 * are exact.
+	 * @param iFile
+	 * @param oFile
+	 */
+	public void compress(TextFile iFile, BinaryFile oFile) {
+		oFile.writeChar('H'); oFile.writeChar(format);
+		
+		if (format == 'C') {
+			CodeLengths.write(oFile, lengths);
+		}
+		else if (format == 'I') {
+			CodeLengths.write(oFile, lengths);
+			oFile.alignToByte();
+		}
+		else if (format == 'D') {
+			oFile.writeBits(dictionary.getId(), 32);
+		}
+		else {
+			tree.write(oFile);
+		}
+	
+		int n;
+		long actual[] = sampleRate > 1 && verbose ? new long[256] : null;
+		
+		if (iFile.isMapped()) {
+			ByteBuffer window;
+			
+			while ((window = iFile.nextWindow()) != null) {
+				if (actual != null) {
+					FrequencyCounter.count(window, actual, counts);
+				}
+				if (format == 'I') {
+					while (window.hasRemaining()) {
+						n = Math.min(window.remaining(), block.length);
+						window.get(block, 0, n);
+						compressInterleaved(block, n, oFile);
+					}
+					continue;
+				}
+				for (int i = window.position(); i < window.limit(); i++) {
+					int ascii = window.get(i) & 0xFF;
+					oFile.writeBits(codes[ascii], lengths[ascii]);
+				}
+			}
+		}
+		while ((n = iFile.read(block, 0, block.length)) > 0) {
+			if (format == 'I') {
+				compressInterleaved(block, n, oFile);
+			}
+			else {
+				for (int i = 0; i < n; i++) {
+					int ascii = block[i] & 0xFF;
+					oFile.writeBits(codes[ascii], lengths[ascii]);
+				}
+			}
+			if (actual != null) {
+				FrequencyCounter.count(block, 0, n, actual, counts);
+			}
+		}
+		if (format == 'I') {
+			oFile.writeBits(0, 32);
+		}
+		
+		if (actual != null) {
+			frequency = actual;
+			unlimitedSize = dotProduct(CodeLengths.fromFrequencies(frequency));
+			calculateCompressedSize();
+		}
+	}
+
+	/**
+	 * Compresses one chunk of the "HI" format: its length, a jump table with
+	 * the length in bytes of each of its substreams, and the substreams, each
+	 * padded to a whole byte. Substream k holds the codes of the k-th quarter
+	 * of the chunk, so a decoder can run through all of them in the same loop.
+	 * @param src
+	 * @param n
+	 * @param oFile
+	 */
+	private void compressInterleaved(byte src[], int n, BinaryFile oFile) {
+		int quarter = (n + HuffmanDecoder.STREAMS - 1) / HuffmanDecoder.STREAMS;
+		
+		if (streams == null) {
+			streams = new BitWriter[HuffmanDecoder.STREAMS];
+			for (int k = 0; k < streams.length; k++) {
+				streams[k] = new BitWriter(block.length / 2);
+			}
+		}
+		for (int k = 0; k < streams.length; k++) {
+			int end = Math.min(n, (k + 1) * quarter);
+			
+			streams[k].reset();
+			for (int i = Math.min(n, k * quarter); i < end; i++) {
+				int ascii = src[i] & 0xFF;
+				streams[k].writeBits(codes[ascii], lengths[ascii]);
+			}
+			streams[k].flush();
+		}
+		
+		oFile.writeBits(n, 32);
+		for (BitWriter stream : streams) {
+			oFile.writeBits(stream.length(), 32);
+		}
+		for (BitWriter stream : streams) {
+			oFile.writeBytes(stream.getBytes(), 0, stream.length());
+		}
+	}
+}
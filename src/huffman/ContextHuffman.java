@@ -0,0 +1,242 @@
+package huffman;
+
+/**
+ * Order-1 context modeling: the code of each character depends on the
+ * character before it. Structured text like logs and CSV files keeps
+ * repeating the same pairs of characters, so a code per previous character
+ * beats a single code for the whole file.
+ *
+ * A context only gets its own code when that saves more bits than its code
+ * length header costs, measured against the code of the whole file. The
+ * other contexts share a fallback code, built from their frequencies added
+ * together, which can only make them smaller still.
+ *
+ * "HO" files hold the fallback code lengths, one bit per context telling
+ * whether it has its own code, the code lengths of those that do, and then
+ * the codes. The first character has context 0.
+ */
+public class ContextHuffman {
+	public static final int CONTEXTS = 256;
+
+	private long frequency[];
+	private int lengths[][];
+	private boolean own[];
+	private int fallback[];
+	private long table[];
+	private int maxCodeLength;
+	private long compressedSize;
+	private long orderZeroSize;
+	private byte block[];
+
+	/**
+	 * Creates a coder whose codes are no longer than maxCodeLength bits.
+	 * @param maxCodeLength
+	 */
+	public ContextHuffman(int maxCodeLength) {
+		CodeLengths.checkLimit(maxCodeLength);
+		this.frequency = new long[CONTEXTS * 256];
+		this.lengths = new int[CONTEXTS][];
+		this.own = new boolean[CONTEXTS];
+		this.maxCodeLength = maxCodeLength;
+		this.block = new byte[TextFile.DEFAULT_BUFFER_SIZE];
+	}
+
+	/**
+	 * Counts every character in the context of the one before it, then
+	 * rewinds the file.
+	 * @param file
+	 */
+	public void countFrequency(TextFile file) {
+		int context = 0;
+		int n;
+
+		while ((n = file.read(block, 0, block.length)) > 0) {
+			for (int i = 0; i < n; i++) {
+				int c = block[i] & 0xFF;
+
+				frequency[(context << 8) | c]++;
+				context = c;
+			}
+		}
+		file.rewind();
+	}
+
+	/**
+	 * Decides which contexts get their own code and builds the codes. Each
+	 * context is first priced with its own code, header included, and with
+	 * the code of the whole file; the contexts that do better with the latter
+	 * then share a code built for just them.
+	 */
+	public void buildTables() {
+		long total[] = new long[256];
+		long shared[] = new long[256];
+		long counts[] = new long[256];
+
+		for (int i = 0; i < frequency.length; i++) {
+			total[i & 0xFF] += frequency[i];
+		}
+		int global[] = CodeLengths.limited(total, maxCodeLength);
+
+		orderZeroSize = dotProduct(total, global);
+		compressedSize = 0;
+		for (int context = 0; context < CONTEXTS; context++) {
+			System.arraycopy(frequency, context << 8, counts, 0, 256);
+			int ownLengths[] = CodeLengths.limited(counts, maxCodeLength);
+			long ownBits = CodeLengths.headerBits(ownLengths) + dotProduct(counts, ownLengths);
+
+			own[context] = ownBits < dotProduct(counts, global);
+			if (own[context]) {
+				lengths[context] = ownLengths;
+				compressedSize += ownBits;
+			}
+			else {
+				for (int c = 0; c < 256; c++) {
+					shared[c] += counts[c];
+				}
+			}
+		}
+
+		fallback = CodeLengths.limited(shared, maxCodeLength);
+		compressedSize += CodeLengths.headerBits(fallback) + dotProduct(shared, fallback);
+		compressedSize += CONTEXTS; // for the context flags
+		compressedSize += 16; // for the magic number
+		compressedSize += BinaryFile.headerBits(compressedSize); // for head information
+		compressedSize += (8 - (compressedSize % 8)) % 8;
+
+		long fallbackCodes[] = CodeLengths.canonicalCodes(fallback);
+
+		table = new long[CONTEXTS * 256];
+		for (int context = 0; context < CONTEXTS; context++) {
+			int l[] = own[context] ? lengths[context] : fallback;
+			long codes[] = own[context] ? CodeLengths.canonicalCodes(l) : fallbackCodes;
+
+			for (int c = 0; c < 256; c++) {
+				table[(context << 8) | c] = (codes[c] << 8) | l[c];
+			}
+		}
+	}
+
+	/**
+	 * Number of bits the characters take with the given code lengths.
+	 * @param counts
+	 * @param lengths
+	 * @return bits
+	 */
+	private static long dotProduct(long counts[], int lengths[]) {
+		long bits = 0;
+
+		for (int c = 0; c < counts.length; c++) {
+			bits += counts[c] * lengths[c];
+		}
+		return bits;
+	}
+
+	/**
+	 * Size of the compressed file in bits, headers included, as
+	 * Compress.calculateCompressedSize gives it.
+	 * @return size of the compressed file
+	 */
+	public long getCompressedSize() {
+		return compressedSize;
+	}
+
+	/**
+	 * Size of the uncompressed file in bits.
+	 * @return size of the file
+	 */
+	public long getOriginalSize() {
+		long size = 0;
+
+		for (long count : frequency) {
+			size += count;
+		}
+		return 8 * size;
+	}
+
+	/**
+	 * Number of contexts that have their own code.
+	 * @return contexts
+	 */
+	public int getOwnContexts() {
+		int count = 0;
+
+		for (boolean b : own) {
+			if (b) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Compresses the file, after buildTables, in the "HO" format.
+	 * @param iFile
+	 * @param oFile
+	 */
+	public void compress(TextFile iFile, BinaryFile oFile) {
+		int context = 0;
+		int n;
+
+		oFile.writeChar('H'); oFile.writeChar('O');
+		CodeLengths.write(oFile, fallback);
+		for (int i = 0; i < CONTEXTS; i++) {
+			oFile.writeBit(own[i]);
+		}
+		for (int i = 0; i < CONTEXTS; i++) {
+			if (own[i]) {
+				CodeLengths.write(oFile, lengths[i]);
+			}
+		}
+
+		while ((n = iFile.read(block, 0, block.length)) > 0) {
+			for (int i = 0; i < n; i++) {
+				int c = block[i] & 0xFF;
+				long entry = table[(context << 8) | c];
+
+				oFile.writeBits(entry >>> 8, (int) entry & 0xFF);
+				context = c;
+			}
+		}
+	}
+
+	/**
+	 * Decompresses the rest of the binary file, which follows the "HO" magic
+	 * number. Contexts without their own code share one decoder.
+	 * @param iFile
+	 * @param oFile
+	 */
+	public void decompress(BinaryFile iFile, TextFile oFile) {
+		HuffmanDecoder decoders[] = new HuffmanDecoder[CONTEXTS];
+		HuffmanDecoder shared = new HuffmanDecoder(CodeLengths.read(iFile));
+		int context = 0;
+		int n = 0;
+
+		for (int i = 0; i < CONTEXTS; i++) {
+			own[i] = iFile.readBit();
+		}
+		for (int i = 0; i < CONTEXTS; i++) {
+			decoders[i] = own[i] ? new HuffmanDecoder(CodeLengths.read(iFile)) : shared;
+		}
+
+		while (!iFile.EndOfFile()) {
+			context = decoders[context].decodeChar(iFile);
+			block[n++] = (byte) context;
+			if (n == block.length) {
+				oFile.write(block, 0, n);
+				n = 0;
+			}
+		}
+		oFile.write(block, 0, n);
+	}
+
+	/**
+	 * Prints how many contexts have their own code and the sizes with and
+	 * without the contexts. Only used for "-v" flag.
+	 */
+	public void print() {
+		System.out.println("CONTEXTS WITH THEIR OWN CODE: " + getOwnContexts() + " OF " + CONTEXTS);
+		System.out.println("UNCOMPRESSED FILE SIZE: " + getOriginalSize() + " BITS");
+		System.out.println("COMPRESSED FILE SIZE: " + compressedSize + " BITS");
+		System.out.println("CODED WITHOUT CONTEXTS: " + orderZeroSize + " BITS, WITHOUT HEADERS");
+	}
+}
@@ -0,0 +1,197 @@
+package huffman;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the decoders of recently seen code tables, so that files or blocks
+ * written with the same table share one decoder instead of each building
+ * its own. A decoder is looked up by the header bits of its table, copied
+ * as they are read, so a hit parses nothing and builds nothing; the least
+ * recently used one is dropped once the cache holds more than its capacity.
+ * One cache can be shared by all the threads of a decompression worker.
+ */
+public class DecoderCache {
+	public static final int DEFAULT_CAPACITY = 64;
+
+	private final LinkedHashMap<Key, HuffmanDecoder> decoders;
+	private long hits;
+	private long misses;
+
+	/**
+	 * Creates an empty cache.
+	 * @param capacity number of decoders kept
+	 */
+	public DecoderCache(int capacity) {
+		Assert.notFalse(capacity >= 1, "Cache capacity must be at least 1");
+		decoders = new LinkedHashMap<Key, HuffmanDecoder>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, HuffmanDecoder> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized int size() {
+		return decoders.size();
+	}
+
+	/**
+	 * Reads a code length header ("HC", "HI" and blocks) and gets its decoder.
+	 * @param in positioned at the header, and left after it
+	 * @return decoder
+	 */
+	public HuffmanDecoder readLengths(BitInput in) {
+		BitWriter header = new BitWriter(64);
+		int width = CodeLengths.bitsFor((int) copy(in, header, 8));
+		int count = (int) copy(in, header, 9);
+		int bits = 17;
+
+		for (int i = 0; i < count; i++) {
+			int zeros = 0;
+
+			while (in.peekBits(1) == 0) {
+				Assert.notFalse(zeros < 8, "Corrupt code length header");
+				copy(in, header, 1);
+				zeros++;
+			}
+			copy(in, header, 1 + zeros + width);
+			bits += 2 * zeros + 1 + width;
+		}
+		return get(new Key('C', header, bits));
+	}
+
+	/**
+	 * Reads a preorder tree header ("HF") and gets its decoder.
+	 * @param in positioned at the header, and left after it
+	 * @param tree filled in with the tree if not null, for printing it
+	 * @return decoder
+	 */
+	public HuffmanDecoder readTree(BitInput in, HuffmanTree tree) {
+		BitWriter header = new BitWriter(64);
+		int open = 1;
+		int bits = 0;
+
+		// one more leaf than internal nodes ends the tree
+		while (open > 0) {
+			Assert.notFalse(bits < 10 * HuffmanTree.MAX_NODES, "Corrupt Huffman tree");
+			if (copy(in, header, 1) == 1) {
+				copy(in, header, 8);
+				open--;
+				bits += 9;
+			}
+			else {
+				open++;
+				bits++;
+			}
+		}
+		Key key = new Key('F', header, bits);
+
+		if (tree != null) {
+			tree.read(key.reader());
+		}
+		return get(key);
+	}
+
+	/**
+	 * Moves n bits of the input to the header copy.
+	 * @param in
+	 * @param header
+	 * @param n
+	 * @return the bits
+	 */
+	private static long copy(BitInput in, BitWriter header, int n) {
+		long bits = in.peekBits(n);
+
+		in.skipBits(n);
+		header.writeBits(bits, n);
+		return bits;
+	}
+
+	/**
+	 * Gets the decoder of a header, parsing the header and building the
+	 * decoder only if the same header bytes are not in the cache.
+	 * @param key
+	 * @return decoder
+	 */
+	private HuffmanDecoder get(Key key) {
+		HuffmanDecoder decoder;
+
+		synchronized (this) {
+			decoder = decoders.get(key);
+			if (decoder != null) {
+				hits++;
+				return decoder;
+			}
+			misses++;
+		}
+
+		// built outside the lock; two threads missing on the same header both build it
+		if (key.kind == 'F') {
+			HuffmanTree tree = new HuffmanTree();
+
+			tree.read(key.reader());
+			decoder = new HuffmanDecoder(tree);
+		}
+		else {
+			decoder = new HuffmanDecoder(CodeLengths.read(key.reader()));
+		}
+		synchronized (this) {
+			decoders.put(key, decoder);
+		}
+		return decoder;
+	}
+
+	/**
+	 * A header as a map key: its kind, 'C' for code lengths or 'F' for a
+	 * tree, and its bits as they were read. The hash is computed once, since
+	 * every lookup needs it.
+	 */
+	private static class Key {
+		private final char kind;
+		private final byte bytes[];
+		private final int bits;
+		private final int hash;
+
+		public Key(char kind, BitWriter header, int bits) {
+			header.flush();
+			this.kind = kind;
+			this.bytes = Arrays.copyOf(header.getBytes(), header.length());
+			this.bits = bits;
+			this.hash = 31 * (31 * kind + bits) + Arrays.hashCode(bytes);
+		}
+
+		/**
+		 * Reads the header again.
+		 * @return reader
+		 */
+		public BitReader reader() {
+			return new BitReader(bytes, 0, bytes.length);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			Key that = (Key) other;
+			return hash == that.hash && kind == that.kind && bits == that.bits && Arrays.equals(bytes, that.bytes);
+		}
+	}
+}
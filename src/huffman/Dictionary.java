@@ -0,0 +1,121 @@
+package huffman;
+
+import java.io.File;
+import java.util.zip.CRC32;
+
+/**
+ * A shared code table, trained once on a sample corpus and saved to a
+ * dictionary file. Files compressed with a dictionary ("HD") store only its
+ * ID instead of a tree or code lengths, and compressing them needs no
+ * counting pass, which pays off for many small files of the same kind.
+ *
+ * A dictionary file is written through BinaryFile: the magic number "HT", the
+ * 32-bit ID and a code length header. The ID is a CRC-32 of the code length
+ * header, so the same table always gets the same ID.
+ */
+public class Dictionary {
+	private int lengths[];
+	private long codes[];
+	private int id;
+	private HuffmanDecoder decoder;
+
+	/**
+	 * Creates a dictionary from the code length of every character.
+	 * @param lengths
+	 */
+	public Dictionary(int lengths[]) {
+		BitWriter header = new BitWriter(64);
+		CRC32 crc = new CRC32();
+
+		this.lengths = lengths;
+		this.codes = CodeLengths.canonicalCodes(lengths);
+		CodeLengths.write(header, lengths);
+		header.flush();
+		crc.update(header.getBytes(), 0, header.length());
+		this.id = (int) crc.getValue();
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public int[] getLengths() {
+		return lengths;
+	}
+
+	public long[] getCodes() {
+		return codes;
+	}
+
+	/**
+	 * Gets a decoder for the dictionary, built the first time it is needed.
+	 * @return decoder
+	 */
+	public HuffmanDecoder getDecoder() {
+		if (decoder == null) {
+			decoder = new HuffmanDecoder(lengths);
+		}
+		return decoder;
+	}
+
+	/**
+	 * Builds a dictionary from the frequencies of a corpus. Every character
+	 * gets a count of at least 1, so any file can be compressed with it, not
+	 * only files that look like the corpus.
+	 * @param corpus a file, or a directory whose files are all read
+	 * @param maxCodeLength
+	 * @return dictionary
+	 */
+	public static Dictionary train(String corpus, int maxCodeLength) {
+		long frequency[] = new long[256];
+		byte block[] = new byte[TextFile.DEFAULT_BUFFER_SIZE];
+		File files[] = new File(corpus).isDirectory()
+				? new File(corpus).listFiles(File::isFile) : new File[] { new File(corpus) };
+
+		CodeLengths.checkLimit(maxCodeLength);
+		Assert.notFalse(files != null, "Cannot read corpus " + corpus);
+		for (File file : files) {
+			TextFile sample = new TextFile(file.getPath(), 'r');
+			int n;
+
+			while ((n = sample.read(block, 0, block.length)) > 0) {
+				FrequencyCounter.count(block, 0, n, frequency);
+			}
+			sample.close();
+		}
+		for (int c = 0; c < frequency.length; c++) {
+			frequency[c]++;
+		}
+		return new Dictionary(CodeLengths.limited(frequency, maxCodeLength));
+	}
+
+	/**
+	 * Reads a dictionary file.
+	 * @param filename
+	 * @return dictionary
+	 */
+	public static Dictionary load(String filename) {
+		BinaryFile file = new BinaryFile(filename, 'r');
+
+		Assert.notFalse(file.readMagicNumber() == 'T', filename + " is not a dictionary file");
+		int id = (int) file.peekBits(32);
+		file.skipBits(32);
+		Dictionary dictionary = new Dictionary(CodeLengths.read(file));
+		file.close();
+		Assert.notFalse(dictionary.getId() == id, "Corrupt dictionary file " + filename);
+		return dictionary;
+	}
+
+	/**
+	 * Writes the dictionary file.
+	 * @param filename
+	 */
+	public void save(String filename) {
+		BinaryFile file = new BinaryFile(filename, 'w');
+
+		file.writeChar('H'); file.writeChar('T');
+		file.writeBits(id, 32);
+		CodeLengths.write(file, lengths);
+		file.close();
+	}
+}
@@ -0,0 +1,729 @@
+package huffman;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class Driver {
+	/** Added to the names of the files that "-batch" compresses. */
+	public static final String BATCH_SUFFIX = ".huf";
+	/** Decoders of the code tables seen so far, shared by every file this process decompresses. */
+	private static final DecoderCache DECODERS = new DecoderCache(DecoderCache.DEFAULT_CAPACITY);
+
+	public static void main(String[] args) {
+		
+		if (args.length == 0) {
+	    	System.err.println("No arguments provided.");
+	    }
+	        
+	    ArgumentParser argParser = new ArgumentParser(args);
+	    
+	    // "-stdio" compresses or uncompresses standard input to standard output as a stream
+	    if (argParser.hasFlag("-stdio")) {
+	    	streamStandardIO(argParser);
+	    	return;
+	    }
+	    
+	    // "-train <corpus> <dictionary>" builds a dictionary from a file or a directory of files
+	    if (argParser.hasFlag("-train")) {
+	    	int maxCodeLength = Compress.DEFAULT_MAX_CODE_LENGTH;
+	    	
+	    	if (argParser.hasValue("-m") && ArgumentParser.isInteger(argParser.getValue("-m"))) {
+	    		maxCodeLength = Integer.parseInt(argParser.getValue("-m"));
+	    	}
+	    	Dictionary dictionary = Dictionary.train(args[args.length - 2], maxCodeLength);
+	    	
+	    	dictionary.save(args[args.length - 1]);
+	    	if (argParser.hasFlag("-v")) {
+	    		System.out.println("DICTIONARY ID: " + String.format("%08x", dictionary.getId()));
+	    	}
+	    	return;
+	    }
+	    
+	    // "-archive" packs files into one archive with an index ("-c <files> <archive>"),
+	    // or unpacks all of it ("-u <archive> <directory>") or one entry ("-u -x <name> <archive> <file>")
+	    if (argParser.hasFlag("-archive")) {
+	    	archive(argParser, args[args.length - 2], args[args.length - 1]);
+	    	return;
+	    }
+	    
+	    // "-stats" prints the time spent in each phase; batches can also be watched over JMX
+	    if (argParser.hasFlag("-stats") || argParser.hasFlag("-batch")) {
+	    	Metrics.registerMBean();
+	    }
+	    
+	    // "-batch" compresses or uncompresses many files into a directory, several at a time
+	    if (argParser.hasFlag("-batch")) {
+	    	batch(argParser, args[args.length - 2], args[args.length - 1]);
+	    	if (argParser.hasFlag("-stats")) {
+	    		Metrics.TOTAL.print();
+	    	}
+	    	return;
+	    }
+	    
+	    // If arguments contains "-c" flag -- compress the file
+	    if (argParser.hasFlag("-c")) {
+	    	compressFile(argParser, args[args.length - 2], args[args.length - 1]);
+	    }
+	    
+	    // "-range" reads the blocks of a file at random, so it only works on "-b" output
+	    if (argParser.hasFlag("-u") && argParser.hasFlag("-range") && !SeekableFile.isBlockFile(args[args.length - 2])) {
+	    	System.err.println("-range needs a file compressed in blocks (-b)");
+	    	return;
+	    }
+	    
+	 // If arguments contains "-u" flag -- uncompress the file
+	    if (argParser.hasFlag("-u")) {
+	    	uncompressFile(argParser, args[args.length - 2], args[args.length - 1]);
+	    }
+	}
+	
+	/**
+	 * Compresses one file, with the options given on the command line, and
+	 * records its metrics.
+	 * @param argParser
+	 * @param input
+	 * @param output
+	 */
+	private static void compressFile(ArgumentParser argParser, String input, String output) {
+		Metrics metrics = new Metrics(input);
+		
+		compressFile(argParser, input, output, metrics);
+		finishFile(argParser, metrics, new File(input).length(), new File(output).length(), true);
+	}
+	
+	/**
+	 * Compresses one file, timing each phase.
+	 * @param argParser
+	 * @param input
+	 * @param output
+	 * @param metrics
+	 */
+	private static void compressFile(ArgumentParser argParser, String input, String output, Metrics metrics) {
+		Compress data = new Compress();
+		Metrics.Timer timer;
+		
+		// Create an instance of a file from the input (the file to be compressed)
+		// "-mmap" reads the input through memory-mapped windows
+		TextFile inputFile = new TextFile(input, argParser.hasFlag("-mmap") ? 'm' : 'r');
+		
+		inputFile.setMetrics(metrics);
+		// "-a" codes adaptively, in a single pass without counting frequencies first
+		if (argParser.hasFlag("-a")) {
+			BinaryFile outputBinary = new BinaryFile(output, 'w');
+			
+			outputBinary.setMetrics(metrics);
+			timer = metrics.start(Metrics.Phase.ENCODE);
+			new AdaptiveHuffman().compress(inputFile, outputBinary);
+			timer.stop();
+			inputFile.close();
+			outputBinary.close();
+			return;
+		}
+		
+		// "-m <bits>" limits the length of the canonical codes
+		if (argParser.hasValue("-m") && ArgumentParser.isInteger(argParser.getValue("-m"))) {
+			data.setMaxCodeLength(Integer.parseInt(argParser.getValue("-m")));
+		}
+		
+		// "-d <dictionary>" codes with a trained dictionary; with "-f" without counting
+		// frequencies, otherwise only if it beats a code of the file's own and storing it
+		if (argParser.hasValue("-d")) {
+			timer = metrics.start(Metrics.Phase.TABLE);
+			Dictionary dictionary = Dictionary.load(argParser.getValue("-d"));
+			
+			timer.stop();
+			if (!argParser.hasFlag("-f")) {
+				timer = metrics.start(Metrics.Phase.COUNT);
+				data.countFrequency(inputFile);
+				timer.stop();
+				timer = metrics.start(Metrics.Phase.TABLE);
+				data.setDictionary(dictionary);
+				long dictionarySize = data.calculateCompressedSize();
+				
+				data.setFormat('C');
+				data.buildCanonicalTable();
+				if (dictionarySize <= data.calculateCompressedSize()) {
+					data.setDictionary(dictionary);
+					data.calculateCompressedSize();
+				}
+				timer.stop();
+			}
+			else {
+				data.setDictionary(dictionary);
+			}
+			BinaryFile outputBinary = new BinaryFile(output, 'w');
+			
+			outputBinary.setMetrics(metrics);
+			timer = metrics.start(Metrics.Phase.ENCODE);
+			if (argParser.hasFlag("-f") || data.calculateOriginalSize() > data.getCompressedSize()) {
+				data.compress(inputFile, outputBinary);
+			}
+			else {
+				data.store(inputFile, outputBinary);
+			}
+			timer.stop();
+			inputFile.close();
+			outputBinary.close();
+			return;
+		}
+		
+		// "-o1" codes each character in the context of the one before it
+		if (argParser.hasFlag("-o1")) {
+			ContextHuffman context = new ContextHuffman(data.getMaxCodeLength());
+			
+			timer = metrics.start(Metrics.Phase.COUNT);
+			context.countFrequency(inputFile);
+			timer.stop();
+			timer = metrics.start(Metrics.Phase.TABLE);
+			context.buildTables();
+			timer.stop();
+			BinaryFile outputBinary = new BinaryFile(output, 'w');
+			
+			outputBinary.setMetrics(metrics);
+			timer = metrics.start(Metrics.Phase.ENCODE);
+			if (argParser.hasFlag("-f") || context.getOriginalSize() > context.getCompressedSize()) {
+				context.compress(inputFile, outputBinary);
+			}
+			else {
+				data.store(inputFile, outputBinary);
+			}
+			timer.stop();
+			if (argParser.hasFlag("-v")) {
+				context.print();
+			}
+			
+			inputFile.close();
+			outputBinary.close();
+			return;
+		}
+		
+		// "-b [KB]" writes independent blocks, compressed on several threads
+		if (argParser.hasFlag("-b")) {
+			int blockSize = BlockCodec.DEFAULT_BLOCK_SIZE;
+			
+			if (argParser.hasValue("-b") && ArgumentParser.isInteger(argParser.getValue("-b"))) {
+				blockSize = Integer.parseInt(argParser.getValue("-b")) * 1024;
+			}
+			BlockCodec blocks = new BlockCodec(blockSize, data.getMaxCodeLength(), threads(argParser));
+			BinaryFile outputBinary = new BinaryFile(output, 'w');
+			
+			outputBinary.setMetrics(metrics);
+			timer = metrics.start(Metrics.Phase.ENCODE);
+			blocks.compress(inputFile, outputBinary);
+			timer.stop();
+			if (argParser.hasFlag("-v")) {
+				printBlocks(blocks);
+			}
+			
+			inputFile.close();
+			outputBinary.close();
+			return;
+		}
+		
+		timer = metrics.start(Metrics.Phase.COUNT);
+		// "-s [k]" estimates the frequencies from every k-th chunk of the file
+		if (argParser.hasFlag("-s")) {
+			int rate = Compress.DEFAULT_SAMPLE_RATE;
+			
+			if (argParser.hasValue("-s") && ArgumentParser.isInteger(argParser.getValue("-s"))) {
+				rate = Integer.parseInt(argParser.getValue("-s"));
+			}
+			data.setVerbose(argParser.hasFlag("-v"));
+			data.countFrequencySampled(inputFile, rate);
+		}
+		// "-p [threads]" counts the frequencies on several threads
+		else if (argParser.hasFlag("-p")) {
+			data.countFrequencyParallel(inputFile, threads(argParser));
+		}
+		else {
+			data.countFrequency(inputFile);
+		}
+		timer.stop();
+		// input whose frequencies are close to uniform is stored, without building a tree
+		if (!argParser.hasFlag("-f") && data.isIncompressible()) {
+			BinaryFile outputBinary = new BinaryFile(output, 'w');
+			
+			outputBinary.setMetrics(metrics);
+			timer = metrics.start(Metrics.Phase.ENCODE);
+			data.store(inputFile, outputBinary);
+			timer.stop();
+			if (argParser.hasFlag("-v")) {
+				System.out.println("STORED: ENTROPY " + String.format("%.4f",
+						FrequencyCounter.entropy(data.getFrequency())) + " BITS PER SYMBOL");
+			}
+			
+			inputFile.close();
+			outputBinary.close();
+			return;
+		}
+//		System.out.println(Arrays.toString(data.getFrequency()));
+		timer = metrics.start(Metrics.Phase.TREE);
+		data.buildFrequencyArray();
+//		System.out.println(Arrays.toString(data.getFrequency()));
+		data.buildHuffmanTree();
+		timer.stop();
+//		data.getTree().print();
+//		System.out.println();
+		timer = metrics.start(Metrics.Phase.TABLE);
+		// "-t" writes the older preorder tree header, readable by older versions
+		// as long as the output is under 256 MB
+		if (argParser.hasFlag("-t")) {
+			data.setFormat('F');
+			data.buildLookUpTable();
+		}
+		else {
+			data.buildCanonicalTable();
+			// "-i" splits the codes into interleaved substreams that decode faster
+			if (argParser.hasFlag("-i")) {
+				data.setFormat('I');
+			}
+		}
+		timer.stop();
+		BinaryFile outputBinary = new BinaryFile(output, 'w');
+		
+		outputBinary.setMetrics(metrics);
+		timer = metrics.start(Metrics.Phase.ENCODE);
+		if (argParser.hasFlag("-f")) {
+			data.calculateOriginalSize();
+			data.calculateCompressedSize();
+			data.compress(inputFile, outputBinary);
+		}	    	
+		else if (data.getSampleRate() > 1) {
+			// a sampled estimate can be far off, so the real output decides
+			data.compress(inputFile, outputBinary);
+			if (outputBinary.bitsWritten() >= 16 + 8 * inputFile.length()) {
+				inputFile.rewind();
+				outputBinary.rewind();
+				data.store(inputFile, outputBinary);
+				if (argParser.hasFlag("-v")) {
+					System.out.println("STORED: THE SAMPLED CODES DID NOT MAKE THE FILE SMALLER");
+				}
+			}
+		}
+		else {
+			if (data.calculateOriginalSize() > data.calculateCompressedSize()) {
+				data.compress(inputFile, outputBinary);
+			}
+			else {
+				data.store(inputFile, outputBinary);
+			}
+		}
+		timer.stop();
+		
+		if (argParser.hasFlag("-v")) {
+			data.printForC();
+		}
+		
+		inputFile.close();
+		outputBinary.close();
+	}
+	
+	/**
+	 * Uncompresses one file, in whichever format it was written, and records
+	 * its metrics.
+	 * @param argParser
+	 * @param input
+	 * @param output
+	 */
+	private static void uncompressFile(ArgumentParser argParser, String input, String output) {
+		Metrics metrics = new Metrics(input);
+		
+		uncompressFile(argParser, input, output, metrics);
+		finishFile(argParser, metrics, new File(input).length(), new File(output).length(), false);
+	}
+	
+	/**
+	 * Uncompresses one file, timing each phase.
+	 * @param argParser
+	 * @param input
+	 * @param output
+	 * @param metrics
+	 */
+	private static void uncompressFile(ArgumentParser argParser, String input, String output, Metrics metrics) {
+		// "-range <start>:<end>" uncompresses only those bytes of a block file
+		if (argParser.hasFlag("-range")) {
+			uncompressRange(argParser, input, output, metrics);
+			return;
+		}
+		
+		// Create an instance of a file from the input (the file to be uncompressed)
+		BinaryFile inputFile = new BinaryFile(input, argParser.hasFlag("-mmap") ? 'm' : 'r');
+		Metrics.Timer timer;
+		
+		inputFile.setMetrics(metrics);
+		char format = inputFile.readMagicNumber();
+		
+		if (format == 'F') {
+			HuffmanTree tree = argParser.hasFlag("-v") ? new HuffmanTree() : null;
+			
+			timer = metrics.start(Metrics.Phase.TABLE);
+			// a file that ends before the tree was written for an empty input by older versions
+			HuffmanDecoder decoder = inputFile.EndOfFile() ? new HuffmanDecoder(new int[256])
+					: DECODERS.readTree(inputFile, tree);
+			timer.stop();
+			TextFile outputFile = new TextFile(output, 'w');
+			
+			outputFile.setMetrics(metrics);
+			timer = metrics.start(Metrics.Phase.DECODE);
+			decoder.decode(inputFile, outputFile);
+			timer.stop();
+
+			if (tree != null) {
+				tree.print();
+			}
+			
+			outputFile.close();
+		}
+		else if (format == 'C') {
+			timer = metrics.start(Metrics.Phase.TABLE);
+			HuffmanDecoder decoder = DECODERS.readLengths(inputFile);
+			timer.stop();
+			TextFile outputFile = new TextFile(output, 'w');
+			
+			outputFile.setMetrics(metrics);
+			timer = metrics.start(Metrics.Phase.DECODE);
+			decoder.decode(inputFile, outputFile);
+			timer.stop();
+			outputFile.close();
+		}
+		else if (format == 'D') {
+			Assert.notFalse(argParser.hasValue("-d"), "Compressed with a dictionary; give it with -d");
+			timer = metrics.start(Metrics.Phase.TABLE);
+			Dictionary dictionary = Dictionary.load(argParser.getValue("-d"));
+			HuffmanDecoder decoder = dictionary.getDecoder();
+			timer.stop();
+			int id = (int) inputFile.peekBits(32);
+			
+			inputFile.skipBits(32);
+			Assert.notFalse(id == dictionary.getId(), "Compressed with dictionary "
+					+ String.format("%08x", id) + ", not " + String.format("%08x", dictionary.getId()));
+			TextFile outputFile = new TextFile(output, 'w');
+			
+			outputFile.setMetrics(metrics);
+			timer = metrics.start(Metrics.Phase.DECODE);
+			decoder.decode(inputFile, outputFile);
+			timer.stop();
+			outputFile.close();
+		}
+		else if (format == 'I') {
+			timer = metrics.start(Metrics.Phase.TABLE);
+			HuffmanDecoder decoder = DECODERS.readLengths(inputFile);
+			timer.stop();
+			TextFile outputFile = new TextFile(output, 'w');
+			
+			outputFile.setMetrics(metrics);
+			timer = metrics.start(Metrics.Phase.DECODE);
+			decoder.decodeInterleaved(inputFile, outputFile);
+			timer.stop();
+			outputFile.close();
+		}
+		else if (format == 'O') {
+			TextFile outputFile = new TextFile(output, 'w');
+			
+			outputFile.setMetrics(metrics);
+			timer = metrics.start(Metrics.Phase.DECODE);
+			new ContextHuffman(Compress.DEFAULT_MAX_CODE_LENGTH).decompress(inputFile, outputFile);
+			timer.stop();
+			outputFile.close();
+		}
+		else if (format == 'S') {
+			TextFile outputFile = new TextFile(output, 'w');
+			
+			outputFile.setMetrics(metrics);
+			timer = metrics.start(Metrics.Phase.DECODE);
+			Compress.restore(inputFile, outputFile);
+			timer.stop();
+			outputFile.close();
+		}
+		else if (format == 'A') {
+			TextFile outputFile = new TextFile(output, 'w');
+			
+			outputFile.setMetrics(metrics);
+			timer = metrics.start(Metrics.Phase.DECODE);
+			new AdaptiveHuffman().decompress(inputFile, outputFile);
+			timer.stop();
+			outputFile.close();
+		}
+		else if (format == 'B') {
+			BlockCodec blocks = new BlockCodec(BlockCodec.DEFAULT_BLOCK_SIZE,
+					Compress.DEFAULT_MAX_CODE_LENGTH, threads(argParser));
+			TextFile outputFile = new TextFile(output, 'w');
+			
+			outputFile.setMetrics(metrics);
+			blocks.setDecoderCache(DECODERS);
+			timer = metrics.start(Metrics.Phase.DECODE);
+			blocks.decompress(inputFile, outputFile);
+			timer.stop();
+			if (argParser.hasFlag("-v")) {
+				printBlocks(blocks);
+			}
+			outputFile.close();
+		}
+		else {
+			System.err.println("Decompression denied. "
+					+ "Compression of data not performed with existing compression scheme ");
+		}
+		
+		inputFile.close();
+	}
+	
+	/**
+	 * Uncompresses the bytes from start up to, but not including, end of an
+	 * "HB" file, decoding only the blocks they are in. Without an end, the
+	 * range goes to the end of the file.
+	 * @param argParser
+	 * @param input
+	 * @param output
+	 * @param metrics
+	 */
+	private static void uncompressRange(ArgumentParser argParser, String input, String output, Metrics metrics) {
+		String range[] = argParser.hasValue("-range") ? argParser.getValue("-range").split(":", -1) : new String[0];
+		
+		Assert.notFalse(range.length == 2 && ArgumentParser.isLong(range[0])
+				&& (range[1].isEmpty() || ArgumentParser.isLong(range[1])), "Give the range as -range <start>:<end>");
+		Metrics.Timer timer = metrics.start(Metrics.Phase.TABLE);
+		SeekableFile inputFile = new SeekableFile(input);
+		timer.stop();
+		long position = Math.max(Long.parseLong(range[0]), 0);
+		long end = range[1].isEmpty() ? inputFile.length() : Math.min(Long.parseLong(range[1]), inputFile.length());
+		byte buffer[] = new byte[TextFile.DEFAULT_BUFFER_SIZE];
+		TextFile outputFile = new TextFile(output, 'w');
+		
+		outputFile.setMetrics(metrics);
+		inputFile.setDecoderCache(DECODERS);
+		timer = metrics.start(Metrics.Phase.DECODE);
+		while (position < end) {
+			int n = inputFile.read(position, buffer, 0, (int) Math.min(buffer.length, end - position));
+			
+			outputFile.write(buffer, 0, n);
+			position += n;
+		}
+		timer.stop();
+		if (argParser.hasFlag("-v")) {
+			System.out.println("BLOCKS: " + inputFile.getBlocks() + (inputFile.isIndexed() ? ", INDEXED" : ", SCANNED"));
+			System.out.println("BLOCKS DECODED: " + inputFile.getDecodedBlocks());
+		}
+		
+		inputFile.close();
+		outputFile.close();
+	}
+	
+	/**
+	 * Adds the sizes of a finished file to its metrics, and the metrics to the
+	 * totals. "-stats" prints them.
+	 * @param argParser
+	 * @param metrics
+	 * @param in size of the input file
+	 * @param out size of the output file
+	 * @param compress
+	 */
+	private static void finishFile(ArgumentParser argParser, Metrics metrics, long in, long out, boolean compress) {
+		metrics.finish(in, out, compress ? in : out, compress);
+		Metrics.TOTAL.add(metrics);
+		if (argParser.hasFlag("-stats") && !argParser.hasFlag("-batch")) {
+			metrics.print();
+		}
+	}
+	
+	/**
+	 * Compresses ("-c") or uncompresses ("-u") every input file into the output
+	 * directory, with the same options as a single file, on a pool of "-p"
+	 * threads. Compressed files get BATCH_SUFFIX added to their name, and lose
+	 * it again when they are uncompressed.
+	 * @param argParser
+	 * @param input a directory, a file, or "@" followed by a file that lists one file per line
+	 * @param directory
+	 */
+	private static void batch(ArgumentParser argParser, String input, String directory) {
+		ExecutorService pool = Executors.newFixedThreadPool(threads(argParser));
+		List<Future<?>> pending = new ArrayList<Future<?>>();
+		boolean compress = argParser.hasFlag("-c");
+		
+		new File(directory).mkdirs();
+		try {
+			for (File file : inputFiles(input)) {
+				String name = file.getName();
+				
+				if (compress) {
+					name += BATCH_SUFFIX;
+				}
+				else if (name.endsWith(BATCH_SUFFIX)) {
+					name = name.substring(0, name.length() - BATCH_SUFFIX.length());
+				}
+				String output = new File(directory, name).getPath();
+				
+				pending.add(pool.submit(() -> {
+					if (compress) {
+						compressFile(argParser, file.getPath(), output);
+					}
+					else {
+						uncompressFile(argParser, file.getPath(), output);
+					}
+				}));
+			}
+			for (Future<?> future : pending) {
+				future.get();
+			}
+		}
+		catch (Exception e) {
+			System.out.println(e.getMessage());
+			System.exit(0);
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+	
+	/**
+	 * Creates ("-c") or extracts ("-u") an archive.
+	 * @param argParser
+	 * @param input the files to pack, or the archive
+	 * @param output the archive, or where to extract to
+	 */
+	private static void archive(ArgumentParser argParser, String input, String output) {
+		int blockSize = BlockCodec.DEFAULT_BLOCK_SIZE;
+		int maxCodeLength = Compress.DEFAULT_MAX_CODE_LENGTH;
+		
+		if (argParser.hasValue("-b") && ArgumentParser.isInteger(argParser.getValue("-b"))) {
+			blockSize = Integer.parseInt(argParser.getValue("-b")) * 1024;
+		}
+		if (argParser.hasValue("-m") && ArgumentParser.isInteger(argParser.getValue("-m"))) {
+			maxCodeLength = Integer.parseInt(argParser.getValue("-m"));
+		}
+		Archive archive = new Archive(blockSize, maxCodeLength, threads(argParser));
+		
+		archive.setDecoderCache(DECODERS);
+		if (argParser.hasFlag("-c")) {
+			archive.create(inputFiles(input), output);
+		}
+		else if (argParser.hasValue("-x")) {
+			archive.extract(input, argParser.getValue("-x"), output);
+		}
+		else {
+			archive.extractAll(input, output);
+		}
+		
+		if (argParser.hasFlag("-v")) {
+			System.out.println("ENTRIES: " + archive.getEntries());
+			System.out.println("UNCOMPRESSED SIZE: " + archive.getOriginalBytes() * 8 + " BITS");
+			System.out.println("COMPRESSED SIZE: " + archive.getCompressedBytes() * 8 + " BITS");
+		}
+	}
+	
+	/**
+	 * Lists the files to work on: the files of a directory, in order of name,
+	 * the files named in a list file ("@list"), or a single file.
+	 * @param input
+	 * @return files
+	 */
+	private static List<File> inputFiles(String input) {
+		List<File> files = new ArrayList<File>();
+		
+		try {
+			if (input.startsWith("@")) {
+				for (String line : Files.readAllLines(Paths.get(input.substring(1)))) {
+					if (!line.trim().isEmpty()) {
+						files.add(new File(line.trim()));
+					}
+				}
+			}
+			else if (new File(input).isDirectory()) {
+				File listed[] = new File(input).listFiles(File::isFile);
+				
+				Arrays.sort(listed);
+				files.addAll(Arrays.asList(listed));
+			}
+			else {
+				files.add(new File(input));
+			}
+		}
+		catch (Exception e) {
+			System.out.println(e.getMessage());
+			System.exit(0);
+		}
+		return files;
+	}
+	
+	/**
+	 * Compresses ("-c") or uncompresses ("-u") standard input to standard output
+	 * with HuffmanOutputStream or HuffmanInputStream, so pipes work without
+	 * temporary files. System.out is pointed at standard error meanwhile, so
+	 * messages printed by Assert cannot end up in the data.
+	 * @param argParser
+	 */
+	private static void streamStandardIO(ArgumentParser argParser) {
+		byte buffer[] = new byte[TextFile.DEFAULT_BUFFER_SIZE];
+		PrintStream stdout = System.out;
+		int n;
+		
+		System.setOut(System.err);
+		try {
+			if (argParser.hasFlag("-c")) {
+				int blockSize = BlockCodec.DEFAULT_BLOCK_SIZE;
+				int maxCodeLength = Compress.DEFAULT_MAX_CODE_LENGTH;
+				
+				if (argParser.hasValue("-b") && ArgumentParser.isInteger(argParser.getValue("-b"))) {
+					blockSize = Integer.parseInt(argParser.getValue("-b")) * 1024;
+				}
+				if (argParser.hasValue("-m") && ArgumentParser.isInteger(argParser.getValue("-m"))) {
+					maxCodeLength = Integer.parseInt(argParser.getValue("-m"));
+				}
+				HuffmanOutputStream out = new HuffmanOutputStream(stdout, blockSize, maxCodeLength);
+				
+				while ((n = System.in.read(buffer)) > 0) {
+					out.write(buffer, 0, n);
+				}
+				out.close();
+			}
+			else if (argParser.hasFlag("-u")) {
+				HuffmanInputStream in = new HuffmanInputStream(System.in, DECODERS);
+				
+				while ((n = in.read(buffer, 0, buffer.length)) > 0) {
+					stdout.write(buffer, 0, n);
+				}
+				stdout.flush();
+			}
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage() != null ? e.getMessage() : e.toString());
+			System.exit(1);
+		}
+		finally {
+			System.setOut(stdout);
+		}
+	}
+	
+	/**
+	 * Number of threads to use: the value of "-p", or one per available processor.
+	 * @param argParser
+	 * @return threads
+	 */
+	private static int threads(ArgumentParser argParser) {
+		if (argParser.hasValue("-p") && ArgumentParser.isInteger(argParser.getValue("-p"))) {
+			return Integer.parseInt(argParser.getValue("-p"));
+		}
+		
+		return Runtime.getRuntime().availableProcessors();
+	}
+	
+	/**
+	 * Prints the block count and sizes. Only used for "-v" flag with blocks.
+	 * @param blocks
+	 */
+	private static void printBlocks(BlockCodec blocks) {
+		System.out.println("BLOCKS: " + blocks.getBlocks());
+		System.out.println("STORED BLOCKS: " + blocks.getStoredBlocks());
+		System.out.println("DECODER CACHE: " + blocks.getDecoderCache().getHits() + " HITS, "
+				+ blocks.getDecoderCache().getMisses() + " MISSES");
+		System.out.println("UNCOMPRESSED FILE SIZE: " + blocks.getOriginalBytes() * 8 + " BITS");
+		System.out.println("COMPRESSED FILE SIZE: " + blocks.getCompressedBytes() * 8 + " BITS");
+	}
+}
\ No newline at end of file
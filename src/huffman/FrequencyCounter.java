@@ -0,0 +1,268 @@
+package huffman;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts how often each byte value occurs. Blocks are counted into four
+ * interleaved histograms, so that runs of the same byte update different
+ * counters instead of waiting on the previous increment of the same one.
+ * The histograms are scratch counters that the caller keeps, or else one
+ * set per thread, so counting a block allocates nothing.
+ * Whole files can be split into ranges that are counted on a ForkJoinPool,
+ * each range into its own histogram, and merged at the end.
+ * For a quick estimate, only every k-th chunk of a file is counted.
+ */
+public class FrequencyCounter {
+	/** Ranges at most this long are counted by a single task. */
+	public static final long SPLIT_SIZE = 1 << 23;
+	private static final int READ_SIZE = 1 << 20;
+	/**
+	 * Entropy, in bits per byte, from which data is stored instead of coded.
+	 * A Huffman code never beats the entropy, so at this point it saves at
+	 * most about 1%, which its header and the coding time are not worth.
+	 */
+	public static final double INCOMPRESSIBLE_ENTROPY = 7.92;
+	/** Size of the chunks that countSampled takes or skips as a whole. */
+	public static final int SAMPLE_CHUNK = 1 << 16;
+	/** Length of the scratch counters count takes: four histograms. */
+	public static final int SCRATCH_SIZE = 4 * 256;
+	/** Scratch counters of each thread, for callers that do not keep their own. */
+	private static final ThreadLocal<int[]> SCRATCH = ThreadLocal.withInitial(() -> new int[SCRATCH_SIZE]);
+
+	/**
+	 * Adds the byte counts of b[off .. off + len - 1] to frequency, with the
+	 * scratch counters of the calling thread.
+	 * @param b
+	 * @param off
+	 * @param len
+	 * @param frequency 256 counters
+	 */
+	public static void count(byte b[], int off, int len, long frequency[]) {
+		count(b, off, len, frequency, SCRATCH.get());
+	}
+
+	/**
+	 * Adds the byte counts of b[off .. off + len - 1] to frequency.
+	 * @param b
+	 * @param off
+	 * @param len
+	 * @param frequency 256 counters
+	 * @param counts SCRATCH_SIZE scratch counters, all zero, and left so
+	 */
+	public static void count(byte b[], int off, int len, long frequency[], int counts[]) {
+		int end = off + len;
+		int i = off;
+
+		for (; i + 3 < end; i += 4) {
+			counts[b[i] & 0xFF]++;
+			counts[256 + (b[i + 1] & 0xFF)]++;
+			counts[512 + (b[i + 2] & 0xFF)]++;
+			counts[768 + (b[i + 3] & 0xFF)]++;
+		}
+		for (; i < end; i++) {
+			counts[b[i] & 0xFF]++;
+		}
+
+		merge(counts, frequency);
+	}
+
+	/**
+	 * Adds the byte counts of the remaining bytes of buffer to frequency,
+	 * with the scratch counters of the calling thread.
+	 * @param buffer
+	 * @param frequency 256 counters
+	 */
+	public static void count(ByteBuffer buffer, long frequency[]) {
+		count(buffer, frequency, SCRATCH.get());
+	}
+
+	/**
+	 * Adds the byte counts of the remaining bytes of buffer to frequency,
+	 * without moving its position. Used to scan memory-mapped files in place.
+	 * @param buffer
+	 * @param frequency 256 counters
+	 * @param counts SCRATCH_SIZE scratch counters, all zero, and left so
+	 */
+	public static void count(ByteBuffer buffer, long frequency[], int counts[]) {
+		int end = buffer.limit();
+		int i = buffer.position();
+
+		for (; i + 3 < end; i += 4) {
+			counts[buffer.get(i) & 0xFF]++;
+			counts[256 + (buffer.get(i + 1) & 0xFF)]++;
+			counts[512 + (buffer.get(i + 2) & 0xFF)]++;
+			counts[768 + (buffer.get(i + 3) & 0xFF)]++;
+		}
+		for (; i < end; i++) {
+			counts[buffer.get(i) & 0xFF]++;
+		}
+
+		merge(counts, frequency);
+	}
+
+	/**
+	 * Adds the four histograms to frequency, clearing them for the next call.
+	 * @param counts
+	 * @param frequency
+	 */
+	private static void merge(int counts[], long frequency[]) {
+		for (int c = 0; c < 256; c++) {
+			frequency[c] += (long) counts[c] + counts[256 + c] + counts[512 + c] + counts[768 + c];
+			counts[c] = 0;
+			counts[256 + c] = 0;
+			counts[512 + c] = 0;
+			counts[768 + c] = 0;
+		}
+	}
+
+	/**
+	 * Counts the bytes of the first length bytes of a file on the given
+	 * number of threads. Positional reads are used, or each range is
+	 * memory-mapped if mapped is set, so the file pointer of the channel is
+	 * not moved.
+	 * @param channel
+	 * @param length
+	 * @param threads
+	 * @param mapped
+	 * @return frequency of each byte value
+	 */
+	public static long[] countParallel(FileChannel channel, long length, int threads, boolean mapped) {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+
+		try {
+			return pool.invoke(new RangeTask(channel, 0, length, mapped));
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Counts only every rate-th chunk of SAMPLE_CHUNK bytes of the first
+	 * length bytes of a file, starting with the first chunk. Positional reads
+	 * are used, so the file pointer of the channel is not moved and the
+	 * skipped chunks are never read.
+	 * @param channel
+	 * @param length
+	 * @param rate 1 counts every chunk
+	 * @return frequency of each byte value in the sampled chunks
+	 */
+	public static long[] countSampled(FileChannel channel, long length, int rate) {
+		long frequency[] = new long[256];
+		ByteBuffer buffer = ByteBuffer.allocate(SAMPLE_CHUNK);
+
+		Assert.notFalse(rate >= 1, "Sample rate must be at least 1");
+		try {
+			for (long start = 0; start < length; start += (long) rate * SAMPLE_CHUNK) {
+				buffer.clear();
+				buffer.limit((int) Math.min(SAMPLE_CHUNK, length - start));
+				while (buffer.hasRemaining()) {
+					if (channel.read(buffer, start + buffer.position()) <= 0) {
+						break;
+					}
+				}
+				count(buffer.array(), 0, buffer.position(), frequency);
+			}
+		}
+		catch (Exception e) {
+			System.out.println(e.getMessage());
+			System.exit(0);
+		}
+		return frequency;
+	}
+
+	/**
+	 * Shannon entropy of the counts: the average number of bits per byte an
+	 * ideal code would need.
+	 * @param frequency
+	 * @return bits per byte, 0 if there are no counts
+	 */
+	public static double entropy(long frequency[]) {
+		long total = 0;
+		double bits = 0;
+
+		for (long f : frequency) {
+			total += f;
+		}
+		for (long f : frequency) {
+			if (f > 0) {
+				bits -= f * Math.log((double) f / total);
+			}
+		}
+		return total == 0 ? 0.0 : bits / Math.log(2) / total;
+	}
+
+	/**
+	 * Counts one range of a file, splitting it in half until it is at most
+	 * SPLIT_SIZE bytes long.
+	 */
+	private static class RangeTask extends RecursiveTask<long[]> {
+		private static final long serialVersionUID = 1L;
+
+		private final FileChannel channel;
+		private final long start;
+		private final long end;
+		private final boolean mapped;
+
+		public RangeTask(FileChannel channel, long start, long end, boolean mapped) {
+			this.channel = channel;
+			this.start = start;
+			this.end = end;
+			this.mapped = mapped;
+		}
+
+		@Override
+		protected long[] compute() {
+			if (end - start > SPLIT_SIZE) {
+				long middle = start + (end - start) / 2;
+				RangeTask left = new RangeTask(channel, start, middle, mapped);
+				RangeTask right = new RangeTask(channel, middle, end, mapped);
+
+				left.fork();
+				long frequency[] = right.compute();
+				long other[] = left.join();
+				for (int c = 0; c < 256; c++) {
+					frequency[c] += other[c];
+				}
+				return frequency;
+			}
+
+			long frequency[] = new long[256];
+
+			if (mapped) {
+				try {
+					count(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start), frequency);
+				}
+				catch (Exception e) {
+					System.out.println(e.getMessage());
+					System.exit(0);
+				}
+				return frequency;
+			}
+
+			ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(READ_SIZE, end - start));
+			long position = start;
+
+			try {
+				while (position < end) {
+					buffer.clear();
+					buffer.limit((int) Math.min(buffer.capacity(), end - position));
+					int n = channel.read(buffer, position);
+					if (n <= 0) {
+						break;
+					}
+					count(buffer.array(), 0, n, frequency);
+					position += n;
+				}
+			}
+			catch (Exception e) {
+				System.out.println(e.getMessage());
+				System.exit(0);
+			}
+			return frequency;
+		}
+	}
+}
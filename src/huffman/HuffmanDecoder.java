@@ -0,0 +1,532 @@
+package huffman;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Table-driven Huffman decoder. Instead of walking the tree one bit at a time,
+ * the next TABLE_BITS bits of the input are peeked and used as an index into a
+ * table that gives the decoded character and the length of its code directly.
+ * Codes longer than TABLE_BITS go through a second, smaller table that is
+ * linked from the first one, at most SUB_BITS bits wide. The few codes longer
+ * than TABLE_BITS + SUB_BITS, which only the rarest characters get, are found
+ * by a binary search among the long codes of each length instead, so the
+ * tables stay small however long the codes are.
+ *
+ * Table entries are ints. A character entry holds the character in bits 0-7
+ * and the code length in bits 8-15. A link entry has the sign bit set, the
+ * index width of the second table in bits 0-7 and its offset in bits 8-30.
+ * LONG_CODE in the second table sends the lookup to the long codes.
+ *
+ * When the codes are short, a multi-symbol table is built as well: the same
+ * TABLE_BITS-bit index gives every whole code that fits in it, up to
+ * MULTI_SYMBOLS of them, so one lookup decodes several characters. An entry
+ * holds the characters in bits 0-23, the first one lowest, their number in
+ * bits 24-25 and their total code length in bits 26-29. A number of 0 means
+ * the first code is longer than TABLE_BITS and goes through the first table.
+ *
+ * "HI" files split each chunk into STREAMS substreams, one per quarter of
+ * the chunk. Decoding a code has to wait for the one before it, but codes of
+ * different substreams do not depend on each other, so decodeInterleaved
+ * runs through all four in the same loop and the processor can overlap them.
+ */
+public class HuffmanDecoder {
+	public static final int TABLE_BITS = 11;
+	/** Widest second table; longer codes are searched for. */
+	public static final int SUB_BITS = 9;
+	/** Longest code the decoder can peek at once. */
+	public static final int MAX_CODE_LENGTH = 56;
+	/** Most characters a multi-symbol table entry decodes. */
+	public static final int MULTI_SYMBOLS = 3;
+	/** Average characters per multi-symbol entry from which that table is used. */
+	public static final double MULTI_SYMBOL_MIN = 1.5;
+	/** Number of substreams in a chunk of an "HI" file. */
+	public static final int STREAMS = 4;
+
+	private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+	private static final int LONG_CODE = 1 << 30;
+
+	private int table[];
+	private int multi[];
+	private long longCodes[];
+	private byte longSymbols[];
+	private int longFirst[];
+	private int longest;
+
+	/**
+	 * Builds the decoding tables from a Huffman tree.
+	 * @param tree
+	 */
+	public HuffmanDecoder(HuffmanTree tree) {
+		long codes[] = new long[256];
+		int lengths[] = new int[256];
+
+		tree.codes(codes, lengths);
+		buildTable(codes, lengths);
+	}
+
+	/**
+	 * Builds the decoding tables for canonical codes straight from the code
+	 * lengths, without building a tree.
+	 * @param lengths
+	 */
+	public HuffmanDecoder(int lengths[]) {
+		this(CodeLengths.canonicalCodes(lengths), lengths);
+	}
+
+	/**
+	 * Builds the decoding tables from the code and the code length of every
+	 * character. Characters with length 0 have no code.
+	 * @param codes
+	 * @param lengths
+	 */
+	public HuffmanDecoder(long codes[], int lengths[]) {
+		buildTable(codes, lengths);
+	}
+
+	/**
+	 * Fills the first table with every code of at most TABLE_BITS bits, and a
+	 * second table for each TABLE_BITS-bit prefix shared by longer codes. The
+	 * second table is as wide as the longest code with that prefix needs, up
+	 * to SUB_BITS; codes that do not fit in it are kept for buildLongCodes.
+	 * @param codes
+	 * @param lengths
+	 */
+	private void buildTable(long codes[], int lengths[]) {
+		int subBits[] = new int[1 << TABLE_BITS];
+		int size = 1 << TABLE_BITS;
+
+		for (int c = 0; c < lengths.length; c++) {
+			Assert.notFalse(lengths[c] <= MAX_CODE_LENGTH, "Huffman code too long for the decoder");
+			if (lengths[c] > TABLE_BITS) {
+				int prefix = (int) (codes[c] >>> (lengths[c] - TABLE_BITS));
+				subBits[prefix] = Math.max(subBits[prefix], Math.min(lengths[c] - TABLE_BITS, SUB_BITS));
+			}
+		}
+
+		int offsets[] = new int[1 << TABLE_BITS];
+		for (int prefix = 0; prefix < subBits.length; prefix++) {
+			if (subBits[prefix] > 0) {
+				offsets[prefix] = size;
+				size += 1 << subBits[prefix];
+			}
+		}
+
+		table = new int[size];
+		for (int prefix = 0; prefix < subBits.length; prefix++) {
+			if (subBits[prefix] > 0) {
+				table[prefix] = 0x80000000 | (offsets[prefix] << 8) | subBits[prefix];
+			}
+		}
+
+		for (int c = 0; c < lengths.length; c++) {
+			int length = lengths[c];
+
+			if (length == 0) {
+				continue;
+			}
+			int entry = c | (length << 8);
+
+			if (length <= TABLE_BITS) {
+				int first = (int) (codes[c] << (TABLE_BITS - length));
+				fill(first, 1 << (TABLE_BITS - length), entry);
+			}
+			else if (length <= TABLE_BITS + SUB_BITS) {
+				int prefix = (int) (codes[c] >>> (length - TABLE_BITS));
+				int extra = length - TABLE_BITS;
+				int low = (int) (codes[c] & ((1L << extra) - 1));
+				int first = offsets[prefix] + (low << (subBits[prefix] - extra));
+				fill(first, 1 << (subBits[prefix] - extra), entry);
+			}
+			else {
+				int prefix = (int) (codes[c] >>> (length - TABLE_BITS));
+				int low = (int) (codes[c] >>> (length - TABLE_BITS - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+				table[offsets[prefix] + low] = LONG_CODE;
+			}
+		}
+
+		buildLongCodes(codes, lengths);
+		buildMultiTable();
+	}
+
+	/**
+	 * Sorts the codes longer than TABLE_BITS + SUB_BITS by length and then
+	 * by code, and notes where the codes of each length start.
+	 * @param codes
+	 * @param lengths
+	 */
+	private void buildLongCodes(long codes[], int lengths[]) {
+		int count = 0;
+
+		longest = 0;
+		longFirst = new int[MAX_CODE_LENGTH + 2];
+		for (int c = 0; c < lengths.length; c++) {
+			if (lengths[c] > TABLE_BITS + SUB_BITS) {
+				longFirst[lengths[c] + 1]++;
+				longest = Math.max(longest, lengths[c]);
+				count++;
+			}
+		}
+		if (count == 0) {
+			return;
+		}
+		for (int length = 1; length < longFirst.length; length++) {
+			longFirst[length] += longFirst[length - 1];
+		}
+
+		int next[] = longFirst.clone();
+
+		longCodes = new long[count];
+		longSymbols = new byte[count];
+		for (int c = 0; c < lengths.length; c++) {
+			if (lengths[c] > TABLE_BITS + SUB_BITS) {
+				// insertion sort among the codes of the same length; there are only a few
+				int i = next[lengths[c]]++;
+
+				while (i > longFirst[lengths[c]] && longCodes[i - 1] > codes[c]) {
+					longCodes[i] = longCodes[i - 1];
+					longSymbols[i] = longSymbols[i - 1];
+					i--;
+				}
+				longCodes[i] = codes[c];
+				longSymbols[i] = (byte) c;
+			}
+		}
+	}
+
+	/**
+	 * Finds the long code at the front of bits, trying each length in turn.
+	 * The codes are prefix-free, so only one length can match.
+	 * @param bits the next bits of the input, first bit in bit 63
+	 * @return a character entry, or 0 if no code matches
+	 */
+	private int longCode(long bits) {
+		for (int length = TABLE_BITS + SUB_BITS + 1; length <= longest; length++) {
+			int i = Arrays.binarySearch(longCodes, longFirst[length], longFirst[length + 1], bits >>> (64 - length));
+
+			if (i >= 0) {
+				return (longSymbols[i] & 0xFF) | (length << 8);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Tells whether the multi-symbol table is used.
+	 * @return true if the codes are short enough for it
+	 */
+	public boolean isMultiSymbol() {
+		return multi != null;
+	}
+
+	/**
+	 * Fills the multi-symbol table from the first table, following each index
+	 * code by code for as long as the next code fits in what is left of it.
+	 * A Huffman code makes every index about as likely, so the average number
+	 * of characters per index says whether the table pays off; if it does not,
+	 * it is dropped and only the first table is used.
+	 */
+	private void buildMultiTable() {
+		int mask = (1 << TABLE_BITS) - 1;
+		long total = 0;
+
+		multi = new int[1 << TABLE_BITS];
+		for (int index = 0; index <= mask; index++) {
+			int entry = 0;
+			int count = 0;
+			int bits = 0;
+
+			while (count < MULTI_SYMBOLS) {
+				int single = table[(index << bits) & mask];
+				int length = (single >>> 8) & 0xFF;
+
+				if (single < 0 || length == 0 || bits + length > TABLE_BITS) {
+					break;
+				}
+				entry |= (single & 0xFF) << (8 * count);
+				count++;
+				bits += length;
+			}
+			multi[index] = entry | (count << 24) | (bits << 26);
+			total += count;
+		}
+
+		if (total < MULTI_SYMBOL_MIN * (mask + 1)) {
+			multi = null;
+		}
+	}
+
+	/**
+	 * Stores entry in count consecutive table slots starting at first.
+	 * @param first
+	 * @param count
+	 * @param entry
+	 */
+	private void fill(int first, int count, int entry) {
+		for (int i = first; i < first + count; i++) {
+			table[i] = entry;
+		}
+	}
+
+	/**
+	 * Decodes the next character of a file or a block in memory.
+	 * @param file
+	 * @return character
+	 */
+	public char decodeChar(BitInput file) {
+		int entry = table[(int) file.peekBits(TABLE_BITS)];
+
+		if (entry < 0) {
+			int bits = entry & 0xFF;
+			int index = (int) file.peekBits(TABLE_BITS + bits) & ((1 << bits) - 1);
+			entry = table[((entry >>> 8) & 0x7FFFFF) + index];
+			if (entry == LONG_CODE) {
+				entry = longCode(file.peekBits(longest) << (64 - longest));
+			}
+		}
+
+		int length = (entry >>> 8) & 0xFF;
+		Assert.notFalse(length > 0, "Corrupt compressed data");
+		file.skipBits(length);
+		return (char) (entry & 0xFF);
+	}
+
+	/**
+	 * Decodes exactly len characters into dst, starting at dst[off]. While at
+	 * least MULTI_SYMBOLS characters are left, the multi-symbol table is used:
+	 * all of its characters are stored and only the decoded ones counted, so
+	 * the rest are overwritten by the next lookup. Each character it decodes
+	 * is one of the len, so it never reads past the last code.
+	 * @param in
+	 * @param dst
+	 * @param off
+	 * @param len
+	 */
+	public void decode(BitInput in, byte dst[], int off, int len) {
+		int i = off;
+		int end = off + len;
+
+		if (multi != null) {
+			while (end - i >= MULTI_SYMBOLS) {
+				i += decodeMulti(in, dst, i);
+			}
+		}
+		while (i < end) {
+			dst[i++] = (byte) decodeChar(in);
+		}
+	}
+
+	/**
+	 * Decodes the characters of one multi-symbol table entry into dst[i],
+	 * dst[i + 1] and dst[i + 2], which must all be free to write.
+	 * @param in
+	 * @param dst
+	 * @param i
+	 * @return the number of characters decoded
+	 */
+	private int decodeMulti(BitInput in, byte dst[], int i) {
+		int entry = multi[(int) in.peekBits(TABLE_BITS)];
+		int count = (entry >>> 24) & 3;
+
+		if (count == 0) {
+			dst[i] = (byte) decodeChar(in);
+			return 1;
+		}
+		in.skipBits(entry >>> 26);
+		dst[i] = (byte) entry;
+		dst[i + 1] = (byte) (entry >>> 8);
+		dst[i + 2] = (byte) (entry >>> 16);
+		return count;
+	}
+
+	/**
+	 * Decodes one chunk of an "HI" file: len characters from the STREAMS
+	 * substreams that follow each other in payload, with the given lengths
+	 * in bytes. Each substream is only a bit position, and every code is
+	 * looked up from the 8 bytes at that position, so the four positions
+	 * advance in the same loop without waiting for each other. Near the end
+	 * of the payload, and once the shortest quarter is done, the rest of each
+	 * quarter is decoded with a BitReader.
+	 * @param payload
+	 * @param sizes
+	 * @param dst
+	 * @param len
+	 */
+	public void decodeInterleaved(byte payload[], int sizes[], byte dst[], int len) {
+		int quarter = (len + STREAMS - 1) / STREAMS;
+		int start[] = new int[STREAMS + 1];
+		int limit = 8 * (payload.length - 8);
+		int i0 = 0;
+		int i1 = Math.min(len, quarter);
+		int i2 = Math.min(len, 2 * quarter);
+		int i3 = Math.min(len, 3 * quarter);
+		int end[] = { i1, i2, i3, len };
+
+		for (int k = 0; k < STREAMS; k++) {
+			start[k + 1] = start[k] + sizes[k];
+		}
+		int p0 = 8 * start[0];
+		int p1 = 8 * start[1];
+		int p2 = 8 * start[2];
+		int p3 = 8 * start[3];
+
+		while (end[0] - i0 >= MULTI_SYMBOLS && end[1] - i1 >= MULTI_SYMBOLS
+				&& end[2] - i2 >= MULTI_SYMBOLS && end[3] - i3 >= MULTI_SYMBOLS
+				&& p0 <= limit && p1 <= limit && p2 <= limit && p3 <= limit) {
+			int e0 = multiAt(payload, p0);
+			int e1 = multiAt(payload, p1);
+			int e2 = multiAt(payload, p2);
+			int e3 = multiAt(payload, p3);
+
+			p0 += e0 >>> 26;
+			p1 += e1 >>> 26;
+			p2 += e2 >>> 26;
+			p3 += e3 >>> 26;
+			i0 = store(dst, i0, e0);
+			i1 = store(dst, i1, e1);
+			i2 = store(dst, i2, e2);
+			i3 = store(dst, i3, e3);
+		}
+
+		decode(reader(payload, p0, start[1]), dst, i0, end[0] - i0);
+		decode(reader(payload, p1, start[2]), dst, i1, end[1] - i1);
+		decode(reader(payload, p2, start[3]), dst, i2, end[2] - i2);
+		decode(reader(payload, p3, start[4]), dst, i3, end[3] - i3);
+	}
+
+	/**
+	 * Looks up the codes at a bit position of an array with at least 8 bytes
+	 * from there on, in the form of a multi-symbol table entry. A single code
+	 * from the first table becomes an entry of one character.
+	 * @param bytes
+	 * @param position in bits
+	 * @return multi-symbol entry
+	 */
+	private int multiAt(byte bytes[], int position) {
+		long bits = (long) LONGS.get(bytes, position >>> 3) << (position & 7);
+		int index = (int) (bits >>> (64 - TABLE_BITS));
+
+		if (multi != null && multi[index] >>> 24 != 0) {
+			return multi[index];
+		}
+		int entry = table[index];
+
+		if (entry < 0) {
+			int width = entry & 0xFF;
+			entry = table[((entry >>> 8) & 0x7FFFFF) + (int) ((bits << TABLE_BITS) >>> (64 - width))];
+			if (entry == LONG_CODE) {
+				entry = longCode(bits);
+			}
+		}
+		int length = (entry >>> 8) & 0xFF;
+
+		Assert.notFalse(length > 0, "Corrupt compressed data");
+		return (entry & 0xFF) | (1 << 24) | (length << 26);
+	}
+
+	/**
+	 * Stores the characters of a multi-symbol entry at dst[i], which must
+	 * have room for MULTI_SYMBOLS of them.
+	 * @param dst
+	 * @param i
+	 * @param entry
+	 * @return the index after the characters decoded
+	 */
+	private static int store(byte dst[], int i, int entry) {
+		dst[i] = (byte) entry;
+		dst[i + 1] = (byte) (entry >>> 8);
+		dst[i + 2] = (byte) (entry >>> 16);
+		return i + ((entry >>> 24) & 3);
+	}
+
+	/**
+	 * Makes a reader for the rest of a substream.
+	 * @param bytes
+	 * @param position bit position in bytes
+	 * @param end byte offset where the substream ends
+	 * @return reader
+	 */
+	private static BitReader reader(byte bytes[], int position, int end) {
+		int off = Math.min(position >>> 3, end);
+		BitReader in = new BitReader(bytes, off, end - off);
+
+		in.peekBits(position & 7);
+		in.skipBits(position & 7);
+		return in;
+	}
+
+	/**
+	 * Decodes the chunks of an "HI" file, which follow its code length header
+	 * at the next byte boundary, into the text file.
+	 * @param file
+	 * @param text
+	 */
+	public void decodeInterleaved(BinaryFile file, TextFile text) {
+		int sizes[] = new int[STREAMS];
+		byte payload[] = new byte[0];
+		byte block[] = new byte[0];
+		int n;
+
+		file.alignToByte();
+		while ((n = (int) file.peekBits(32)) != 0) {
+			int total = 0;
+
+			file.skipBits(32);
+			Assert.notFalse(n > 0, "Corrupt interleaved chunk");
+			for (int k = 0; k < STREAMS; k++) {
+				sizes[k] = (int) file.peekBits(32);
+				file.skipBits(32);
+				total += sizes[k];
+			}
+			// 8 spare bytes let decodeInterleaved look up the last codes of the chunk too
+			if (payload.length < total + 8) {
+				payload = new byte[total + 8];
+			}
+			if (block.length < n) {
+				block = new byte[n];
+			}
+			file.readBytes(payload, 0, total);
+			decodeInterleaved(payload, sizes, block, n);
+			text.write(block, 0, n);
+		}
+		file.skipBits(32);
+	}
+
+	/**
+	 * Decodes the rest of the binary file into the text file. Decoded characters
+	 * are collected in a block and written out a block at a time. The
+	 * multi-symbol table is used while at least TABLE_BITS bits are left, so
+	 * the codes it decodes are all in the file and not in the zeros past its end.
+	 * @param file
+	 * @param text
+	 */
+	public void decode(BinaryFile file, TextFile text) {
+		byte block[] = new byte[TextFile.DEFAULT_BUFFER_SIZE];
+		int n = 0;
+
+		while (!file.EndOfFile()) {
+			int entry = multi != null && file.bitsRemaining() >= TABLE_BITS
+					? multi[(int) file.peekBits(TABLE_BITS)] : 0;
+			int count = (entry >>> 24) & 3;
+
+			if (count > 0) {
+				file.skipBits(entry >>> 26);
+				block[n] = (byte) entry;
+				block[n + 1] = (byte) (entry >>> 8);
+				block[n + 2] = (byte) (entry >>> 16);
+				n += count;
+			}
+			else {
+				block[n++] = (byte) decodeChar(file);
+			}
+			if (n > block.length - MULTI_SYMBOLS) {
+				text.write(block, 0, n);
+				n = 0;
+			}
+		}
+
+		text.write(block, 0, n);
+	}
+}
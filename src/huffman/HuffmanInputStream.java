@@ -0,0 +1,161 @@
+package huffman;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decompresses a stream written by HuffmanOutputStream, one block at a time,
+ * so memory stays bounded by the block size whatever the length of the stream.
+ */
+public class HuffmanInputStream extends FilterInputStream {
+	private DataInputStream data;
+	private byte block[];
+	private byte payload[];
+	private int position;
+	private int count;
+	private boolean finished;
+	private DecoderCache decoders;
+
+	/**
+	 * Creates a stream and reads the header.
+	 * @param in
+	 * @throws IOException if the stream was not written by HuffmanOutputStream
+	 */
+	public HuffmanInputStream(InputStream in) throws IOException {
+		this(in, new DecoderCache(DecoderCache.DEFAULT_CAPACITY));
+	}
+
+	/**
+	 * Creates a stream that gets its decoders from a shared cache, and reads the header.
+	 * @param in
+	 * @param decoders
+	 * @throws IOException if the stream was not written by HuffmanOutputStream
+	 */
+	public HuffmanInputStream(InputStream in, DecoderCache decoders) throws IOException {
+		super(in);
+		this.decoders = decoders;
+		this.data = new DataInputStream(in);
+		byte magic[] = new byte[BlockCodec.MAGIC.length];
+
+		try {
+			data.readFully(magic);
+		}
+		catch (EOFException e) {
+			throw new IOException("Not a Huffman block stream", e);
+		}
+		if (magic[0] != BlockCodec.MAGIC[0] || magic[1] != BlockCodec.MAGIC[1]) {
+			throw new IOException("Not a Huffman block stream");
+		}
+		int blockSize = readInt();
+		if (blockSize < BlockCodec.MIN_BLOCK_SIZE) {
+			throw new IOException("Corrupt block header");
+		}
+		this.block = new byte[blockSize];
+		this.payload = new byte[0];
+		this.position = 0;
+		this.count = 0;
+		this.finished = false;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (position == count && !nextBlock()) {
+			return -1;
+		}
+		return block[position++] & 0xFF;
+	}
+
+	@Override
+	public int read(byte b[], int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (position == count && !nextBlock()) {
+			return -1;
+		}
+		int n = Math.min(len, count - position);
+		System.arraycopy(block, position, b, off, n);
+		position += n;
+		return n;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = 0;
+
+		while (skipped < n && (position < count || nextBlock())) {
+			int step = (int) Math.min(n - skipped, count - position);
+			position += step;
+			skipped += step;
+		}
+		return skipped;
+	}
+
+	@Override
+	public int available() {
+		return count - position;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	/**
+	 * Reads and decodes the next block.
+	 * @return false at the end marker
+	 * @throws IOException
+	 */
+	private boolean nextBlock() throws IOException {
+		if (finished) {
+			return false;
+		}
+		int original = readInt();
+		if (original == 0) {
+			finished = true;
+			return false;
+		}
+		int length = readInt();
+		if (original < 0 || original > block.length || length < 0) {
+			throw new IOException("Corrupt block header");
+		}
+		if (payload.length < length) {
+			payload = new byte[length];
+		}
+		try {
+			data.readFully(payload, 0, length);
+		}
+		catch (EOFException e) {
+			throw new IOException("Truncated block stream", e);
+		}
+		try {
+			BlockCodec.decodeBlock(payload, length, block, 0, original, decoders);
+		}
+		catch (IllegalArgumentException e) {
+			throw new IOException("Corrupt block", e);
+		}
+		catch (ArrayIndexOutOfBoundsException e) {
+			throw new IOException("Corrupt block", e);
+		}
+		position = 0;
+		count = original;
+		return true;
+	}
+
+	/**
+	 * Reads an int of a header, telling a stream that ends early from other errors.
+	 * @return the int
+	 * @throws IOException "Truncated block stream" if the stream ends first
+	 */
+	private int readInt() throws IOException {
+		try {
+			return data.readInt();
+		}
+		catch (EOFException e) {
+			throw new IOException("Truncated block stream", e);
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package huffman;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compresses everything written to it into the block format, one block at a
+ * time, so any stream can be compressed with memory bounded by the block size.
+ * No header is patched afterwards: each block carries its own lengths and an
+ * empty block marks the end, so the output can go to a pipe or a socket.
+ *
+ * The bytes written are the same as an "HB" file without the bit count that
+ * BinaryFile puts in front of it.
+ */
+public class HuffmanOutputStream extends FilterOutputStream {
+	private byte block[];
+	private int count;
+	private int maxCodeLength;
+	private boolean closed;
+
+	/**
+	 * Creates a stream with the default block size and code length limit, and
+	 * writes the header.
+	 * @param out
+	 * @throws IOException
+	 */
+	public HuffmanOutputStream(OutputStream out) throws IOException {
+		this(out, BlockCodec.DEFAULT_BLOCK_SIZE, Compress.DEFAULT_MAX_CODE_LENGTH);
+	}
+
+	/**
+	 * Creates a stream and writes the header.
+	 * @param out
+	 * @param blockSize
+	 * @param maxCodeLength
+	 * @throws IOException
+	 */
+	public HuffmanOutputStream(OutputStream out, int blockSize, int maxCodeLength) throws IOException {
+		super(out);
+		Assert.notFalse(blockSize >= BlockCodec.MIN_BLOCK_SIZE, "Block size must be at least "
+				+ BlockCodec.MIN_BLOCK_SIZE + " bytes");
+		CodeLengths.checkLimit(maxCodeLength);
+		this.block = new byte[blockSize];
+		this.count = 0;
+		this.maxCodeLength = maxCodeLength;
+		this.closed = false;
+		out.write(BlockCodec.MAGIC);
+		writeInt(blockSize);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (count == block.length) {
+			writeBlock();
+		}
+		block[count++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte b[], int off, int len) throws IOException {
+		while (len > 0) {
+			if (count == block.length) {
+				writeBlock();
+			}
+			int n = Math.min(len, block.length - count);
+			System.arraycopy(b, off, block, count, n);
+			count += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * Compresses whatever has been written so far as a (possibly short) block,
+	 * so the reader can decode it, and flushes the underlying stream.
+	 * @throws IOException
+	 */
+	@Override
+	public void flush() throws IOException {
+		writeBlock();
+		out.flush();
+	}
+
+	/**
+	 * Compresses the last block, writes the end marker and closes the
+	 * underlying stream.
+	 * @throws IOException
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		writeBlock();
+		writeInt(0);
+		out.close();
+	}
+
+	/**
+	 * Compresses and writes the buffered block, if any.
+	 * @throws IOException
+	 */
+	private void writeBlock() throws IOException {
+		if (count == 0) {
+			return;
+		}
+		BitWriter payload = BlockCodec.encodeBlock(block, 0, count, maxCodeLength);
+
+		writeInt(count);
+		writeInt(payload.length());
+		out.write(payload.getBytes(), 0, payload.length());
+		count = 0;
+	}
+
+	/**
+	 * Writes a big-endian int, as BinaryFile.writeBits(v, 32) does.
+	 * @param v
+	 * @throws IOException
+	 */
+	private void writeInt(int v) throws IOException {
+		out.write(v >>> 24);
+		out.write(v >>> 16);
+		out.write(v >>> 8);
+		out.write(v);
+	}
+}
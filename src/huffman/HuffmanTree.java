@@ -0,0 +1,342 @@
+package huffman;
+
+import java.util.Arrays;
+
+/**
+ * A Huffman tree kept in flat arrays instead of linked objects. Building it,
+ * reading its codes off it and writing or reading its preorder header only
+ * touch a few small arrays, without recursion and without allocating, and
+ * the same tree can be cleared and built again for the next file.
+ *
+ * Nodes are numbered in the order they are made. Node n has the children
+ * left[n] and right[n] and the weight weight[n]; symbol[n] is its character
+ * if it is a leaf and -1 if it is an internal node, so every byte, 0x00
+ * included, can be a leaf.
+ */
+public class HuffmanTree {
+	/** Most nodes a tree over 256 characters can have. */
+	public static final int MAX_NODES = 2 * 256 - 1;
+
+	private final int left[];
+	private final int right[];
+	private final short symbol[];
+	private final long weight[];
+	private final int stack[];
+	private final long path[];
+	private final int depth[];
+	private final long sorted[];
+	private int size;
+	private int leaves;
+	private int root;
+
+	public HuffmanTree() {
+		this.left = new int[MAX_NODES];
+		this.right = new int[MAX_NODES];
+		this.symbol = new short[MAX_NODES];
+		this.weight = new long[MAX_NODES];
+		this.stack = new int[MAX_NODES];
+		this.path = new long[MAX_NODES];
+		this.depth = new int[MAX_NODES];
+		this.sorted = new long[256];
+		clear();
+	}
+
+	/**
+	 * Empties the tree, keeping its arrays.
+	 */
+	public void clear() {
+		size = 0;
+		leaves = 0;
+		root = -1;
+	}
+
+	/**
+	 * Gets the root.
+	 * @return the index of the root, or -1 if the tree is empty
+	 */
+	public int getRoot() {
+		return root;
+	}
+
+	/**
+	 * Gets the number of nodes.
+	 * @return size
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	public boolean isLeaf(int node) {
+		return symbol[node] >= 0;
+	}
+
+	public int getLeft(int node) {
+		return left[node];
+	}
+
+	public int getRight(int node) {
+		return right[node];
+	}
+
+	public int getSymbol(int node) {
+		return symbol[node];
+	}
+
+	public long getWeight(int node) {
+		return weight[node];
+	}
+
+	/**
+	 * Makes a node.
+	 * @param c character of a leaf, or -1
+	 * @param w weight
+	 * @param l left child, or -1
+	 * @param r right child, or -1
+	 * @return index of the node
+	 */
+	private int node(int c, long w, int l, int r) {
+		Assert.notFalse(size < MAX_NODES, "Corrupt Huffman tree");
+		symbol[size] = (short) c;
+		weight[size] = w;
+		left[size] = l;
+		right[size] = r;
+		return size++;
+	}
+
+	/**
+	 * Clears the tree and makes a leaf for every character with a frequency,
+	 * in order of increasing frequency. Characters with the same frequency
+	 * are in increasing order.
+	 * @param frequency
+	 */
+	public void addLeaves(long frequency[]) {
+		int n = 0;
+
+		clear();
+		for (int c = 0; c < frequency.length; c++) {
+			if (frequency[c] > 0) {
+				Assert.notFalse(frequency[c] < 1L << 55, "Frequency too large");
+				sorted[n++] = (frequency[c] << 8) | c;
+			}
+		}
+
+		Arrays.sort(sorted, 0, n);
+		for (int i = 0; i < n; i++) {
+			node((int) (sorted[i] & 0xFF), sorted[i] >>> 8, -1, -1);
+		}
+		leaves = n;
+		root = n == 1 ? 0 : -1;
+	}
+
+	/**
+	 * Merges the leaves into a tree, using two queues: the leaves, already in
+	 * order of increasing weight, and the merged nodes, which come out in order
+	 * of increasing weight by themselves. The two lightest nodes are always at
+	 * the front of one of the two queues, so the tree is built in linear time
+	 * without re-sorting. On equal weights a leaf goes first.
+	 */
+	public void merge() {
+		int next = 0;
+		int head = leaves;
+
+		while ((leaves - next) + (size - head) > 1) {
+			int lowest;
+			int second;
+
+			if (next < leaves && (head == size || weight[next] <= weight[head])) {
+				lowest = next++;
+			}
+			else {
+				lowest = head++;
+			}
+			if (next < leaves && (head == size || weight[next] <= weight[head])) {
+				second = next++;
+			}
+			else {
+				second = head++;
+			}
+
+			root = node(-1, weight[lowest] + weight[second], lowest, second);
+		}
+	}
+
+	/**
+	 * Gets the length of the longest code, the depth of the deepest leaf.
+	 * @return depth; 1 for a tree that is a single leaf, 0 for an empty tree
+	 */
+	public int depth() {
+		int top = 0;
+		int deepest = 0;
+
+		if (root < 0) {
+			return 0;
+		}
+		depth[root] = 0;
+		stack[top++] = root;
+		while (top > 0) {
+			int n = stack[--top];
+
+			if (symbol[n] >= 0) {
+				deepest = Math.max(deepest, depth[n]);
+			}
+			else {
+				depth[left[n]] = depth[n] + 1;
+				depth[right[n]] = depth[n] + 1;
+				stack[top++] = right[n];
+				stack[top++] = left[n];
+			}
+		}
+		return Math.max(deepest, 1);
+	}
+
+	/**
+	 * Reads the code and the code length of every leaf off the tree. The path
+	 * to a leaf is kept as bits of a long (0 for left, 1 for right). A tree
+	 * that is a single leaf gives it a 1-bit code, so that it can be decoded.
+	 * @param codes filled in, indexed by character
+	 * @param lengths filled in, indexed by character; 0 for characters without a code
+	 */
+	public void codes(long codes[], int lengths[]) {
+		int top = 0;
+
+		Arrays.fill(codes, 0);
+		Arrays.fill(lengths, 0);
+		if (root < 0) {
+			return;
+		}
+		if (symbol[root] >= 0) {
+			lengths[symbol[root]] = 1;
+			return;
+		}
+
+		path[root] = 0;
+		depth[root] = 0;
+		stack[top++] = root;
+		while (top > 0) {
+			int n = stack[--top];
+
+			if (symbol[n] >= 0) {
+				Assert.notFalse(depth[n] <= 64, "Huffman code longer than 64 bits");
+				codes[symbol[n]] = path[n];
+				lengths[symbol[n]] = depth[n];
+			}
+			else {
+				path[left[n]] = path[n] << 1;
+				path[right[n]] = (path[n] << 1) | 1;
+				depth[left[n]] = depth[n] + 1;
+				depth[right[n]] = depth[n] + 1;
+				stack[top++] = right[n];
+				stack[top++] = left[n];
+			}
+		}
+	}
+
+	/**
+	 * Writes a preorder traversal of the tree: 1 followed by the character
+	 * for a leaf, 0 for an internal node. An empty tree is written as a lone
+	 * leaf for character 0, which codes nothing since no bits follow it.
+	 * @param file
+	 */
+	public void write(BinaryFile file) {
+		int top = 0;
+
+		if (root < 0) {
+			file.writeBit(true);
+			file.writeChar((char) 0);
+			return;
+		}
+		stack[top++] = root;
+		while (top > 0) {
+			int n = stack[--top];
+
+			if (symbol[n] >= 0) {
+				file.writeBit(true);
+				file.writeChar((char) symbol[n]);
+			}
+			else {
+				file.writeBit(false);
+				stack[top++] = right[n];
+				stack[top++] = left[n];
+			}
+		}
+	}
+
+	/**
+	 * Clears the tree and reads it back from a preorder traversal written by
+	 * write. The stack holds the internal nodes still waiting for a child.
+	 * @param file
+	 */
+	public void read(BitInput file) {
+		int top = 0;
+
+		clear();
+		do {
+			int n;
+
+			if (file.peekBits(1) == 1) {
+				// characters are stored least significant bit first, as BinaryFile.writeChar does
+				n = node(Integer.reverse((int) file.peekBits(9)) >>> 24, 0, -1, -1);
+				file.skipBits(9);
+			}
+			else {
+				n = node(-1, 0, -1, -1);
+				file.skipBits(1);
+			}
+			if (top == 0) {
+				root = n;
+			}
+			else if (left[stack[top - 1]] < 0) {
+				left[stack[top - 1]] = n;
+			}
+			else {
+				right[stack[--top]] = n;
+			}
+			if (symbol[n] < 0) {
+				Assert.notFalse(top < MAX_NODES, "Corrupt Huffman tree");
+				stack[top++] = n;
+			}
+		} while (top > 0);
+	}
+
+	/**
+	 * Prints the tree with indentations. Only used for "-v" flag.
+	 */
+	public void print() {
+		if (root >= 0) {
+			print(root, 0);
+		}
+	}
+
+	private void print(int n, int indent) {
+		for (int i = 0; i < indent; i++) {
+			System.out.print("\t");
+		}
+		if (symbol[n] >= 0) {
+			System.out.println("Leaf [c=" + symbol[n] + ", frequency=" + weight[n] + "]");
+			return;
+		}
+
+		System.out.println("InternalNode [SUM = " + weight[n] + "]");
+		print(left[n], indent + 1);
+		print(right[n], indent + 1);
+	}
+
+	/**
+	 * Prints the frequency of every leaf, in order. Only used for "-v" flag.
+	 */
+	public void printFrequencies() {
+		if (root >= 0) {
+			printFrequencies(root);
+		}
+	}
+
+	private void printFrequencies(int n) {
+		if (symbol[n] >= 0) {
+			System.out.println("char: " + symbol[n] + "\t" + "frequency: " + weight[n]);
+			return;
+		}
+
+		printFrequencies(left[n]);
+		printFrequencies(right[n]);
+	}
+}
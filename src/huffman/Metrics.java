@@ -0,0 +1,345 @@
+package huffman;
+
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Time spent in each phase of compressing or uncompressing, bytes in and out,
+ * and what follows from them: MB/s and bits per symbol. Driver keeps one
+ * object per file and adds it to TOTAL, which can be registered as an MBean
+ * so a long-running process can be watched over JMX. Every phase and every
+ * file is also a JFR event, recorded when a flight recording is running.
+ *
+ * I/O wait is the time spent reading and writing files. It is also part of
+ * the phase that did the reading or writing.
+ *
+ * MB/s comes from the elapsed time, from the first file started to the last
+ * one finished. The phases of files handled at the same time overlap, so
+ * their sum is reported apart, as phase time. Both are wall-clock times;
+ * work a phase hands to other threads is not added up.
+ */
+public class Metrics implements MetricsMBean {
+	/** The phases timed. */
+	public enum Phase {
+		COUNT, TREE, TABLE, ENCODE, DECODE, IO
+	}
+
+	/** Totals for the whole process. */
+	public static final Metrics TOTAL = new Metrics("");
+
+	private final String file;
+	private final long nanos[];
+	private long files;
+	private long bytesIn;
+	private long bytesOut;
+	private long symbols;
+	private long compressed;
+	private long started;
+	private long finished;
+	private boolean timed;
+
+	/**
+	 * Creates empty metrics for one file, which is taken to start when its
+	 * first phase does.
+	 * @param file name shown in the JFR events
+	 */
+	public Metrics(String file) {
+		this.file = file;
+		this.nanos = new long[Phase.values().length];
+		this.started = System.nanoTime();
+		this.finished = started;
+	}
+
+	/**
+	 * Starts timing a phase.
+	 * @param phase
+	 * @return the timer to stop when the phase is over
+	 */
+	public Timer start(Phase phase) {
+		return new Timer(phase);
+	}
+
+	/**
+	 * Adds time to a phase, for time that is measured in pieces, like I/O wait.
+	 * @param phase
+	 * @param time in nanoseconds
+	 */
+	public synchronized void add(Phase phase, long time) {
+		nanos[phase.ordinal()] += time;
+	}
+
+	/**
+	 * Records the bytes of a finished file and sends its JFR event.
+	 * @param in bytes read
+	 * @param out bytes written
+	 * @param original length of the uncompressed data, in symbols
+	 * @param compress true if the file was compressed, false if uncompressed
+	 */
+	public void finish(long in, long out, long original, boolean compress) {
+		synchronized (this) {
+			files++;
+			finished = System.nanoTime();
+			bytesIn += in;
+			bytesOut += out;
+			symbols += original;
+			compressed += compress ? out : in;
+		}
+
+		FileEvent event = new FileEvent();
+		if (event.shouldCommit()) {
+			event.file = file;
+			event.operation = compress ? "compress" : "uncompress";
+			event.bytesIn = in;
+			event.bytesOut = out;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Adds everything recorded in other to these metrics.
+	 * @param other
+	 */
+	public void add(Metrics other) {
+		long copy[];
+		long counts[];
+
+		synchronized (other) {
+			copy = other.nanos.clone();
+			counts = new long[] { other.files, other.bytesIn, other.bytesOut, other.symbols, other.compressed,
+					other.started, other.finished };
+		}
+		synchronized (this) {
+			for (int i = 0; i < nanos.length; i++) {
+				nanos[i] += copy[i];
+			}
+			// the elapsed time runs from the first file started to the last one finished
+			if (files == 0 || counts[5] - started < 0) {
+				started = counts[5];
+			}
+			if (files == 0 || counts[6] - finished > 0) {
+				finished = counts[6];
+			}
+			files += counts[0];
+			bytesIn += counts[1];
+			bytesOut += counts[2];
+			symbols += counts[3];
+			compressed += counts[4];
+		}
+	}
+
+	/**
+	 * Gets the time spent in a phase.
+	 * @param phase
+	 * @return nanoseconds
+	 */
+	public synchronized long getNanos(Phase phase) {
+		return nanos[phase.ordinal()];
+	}
+
+	@Override
+	public synchronized long getFiles() {
+		return files;
+	}
+
+	@Override
+	public synchronized long getBytesIn() {
+		return bytesIn;
+	}
+
+	@Override
+	public synchronized long getBytesOut() {
+		return bytesOut;
+	}
+
+	@Override
+	public long getCountMillis() {
+		return getNanos(Phase.COUNT) / 1000000;
+	}
+
+	@Override
+	public long getTreeMillis() {
+		return getNanos(Phase.TREE) / 1000000;
+	}
+
+	@Override
+	public long getTableMillis() {
+		return getNanos(Phase.TABLE) / 1000000;
+	}
+
+	@Override
+	public long getEncodeMillis() {
+		return getNanos(Phase.ENCODE) / 1000000;
+	}
+
+	@Override
+	public long getDecodeMillis() {
+		return getNanos(Phase.DECODE) / 1000000;
+	}
+
+	@Override
+	public long getIoWaitMillis() {
+		return getNanos(Phase.IO) / 1000000;
+	}
+
+	/**
+	 * Gets the wall-clock time from the first file started to the last one
+	 * finished.
+	 * @return nanoseconds
+	 */
+	public synchronized long getElapsedNanos() {
+		return finished - started;
+	}
+
+	/**
+	 * Gets the time of all the phases together, I/O wait aside since it is
+	 * already part of them. Files handled on several threads add up, so this
+	 * can be more than the elapsed time.
+	 * @return nanoseconds
+	 */
+	public synchronized long getPhaseNanos() {
+		long time = 0;
+
+		for (Phase phase : Phase.values()) {
+			if (phase != Phase.IO) {
+				time += nanos[phase.ordinal()];
+			}
+		}
+		return time;
+	}
+
+	@Override
+	public long getElapsedMillis() {
+		return getElapsedNanos() / 1000000;
+	}
+
+	@Override
+	public long getPhaseMillis() {
+		return getPhaseNanos() / 1000000;
+	}
+
+	/**
+	 * Uncompressed megabytes (10^6 bytes) per second of elapsed time.
+	 * @return MB/s
+	 */
+	@Override
+	public synchronized double getMegabytesPerSecond() {
+		long time = finished - started;
+
+		return time <= 0 ? 0.0 : symbols * 1000.0 / time;
+	}
+
+	/**
+	 * Compressed bits per uncompressed byte, headers included.
+	 * @return bits per symbol
+	 */
+	@Override
+	public synchronized double getBitsPerSymbol() {
+		return symbols == 0 ? 0.0 : 8.0 * compressed / symbols;
+	}
+
+	/**
+	 * Prints the metrics. Only used for "-stats" flag.
+	 */
+	public void print() {
+		for (Phase phase : Phase.values()) {
+			System.out.println((phase == Phase.IO ? "IO WAIT" : phase.name()) + " TIME: "
+					+ String.format("%.3f", getNanos(phase) / 1e6) + " MS");
+		}
+		System.out.println("ELAPSED TIME: " + String.format("%.3f", getElapsedNanos() / 1e6) + " MS");
+		System.out.println("PHASE TIME: " + String.format("%.3f", getPhaseNanos() / 1e6) + " MS");
+		System.out.println("FILES: " + getFiles());
+		System.out.println("BYTES IN: " + getBytesIn());
+		System.out.println("BYTES OUT: " + getBytesOut());
+		System.out.println("MB/S: " + String.format("%.2f", getMegabytesPerSecond()));
+		System.out.println("BITS PER SYMBOL: " + String.format("%.4f", getBitsPerSymbol()));
+	}
+
+	/**
+	 * Registers TOTAL with the platform MBean server as "huffman:type=Metrics".
+	 * Registering it again does nothing.
+	 */
+	public static synchronized void registerMBean() {
+		try {
+			ObjectName name = new ObjectName("huffman:type=Metrics");
+
+			if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(TOTAL, name);
+			}
+		}
+		catch (Exception e) {
+			System.out.println(e.getMessage());
+			System.exit(0);
+		}
+	}
+
+	/**
+	 * Times one phase, and sends it as a JFR event when it is stopped.
+	 */
+	public class Timer {
+		private final Phase phase;
+		private final long start;
+		private final PhaseEvent event;
+
+		private Timer(Phase phase) {
+			this.phase = phase;
+			this.event = new PhaseEvent();
+			this.event.begin();
+			this.start = System.nanoTime();
+			// after the event, whose first use sets up JFR, so that is not counted
+			synchronized (Metrics.this) {
+				if (!timed) {
+					started = start;
+					timed = true;
+				}
+			}
+		}
+
+		/**
+		 * Stops the timer and adds the time to its phase.
+		 */
+		public void stop() {
+			add(phase, System.nanoTime() - start);
+			event.end();
+			if (event.shouldCommit()) {
+				event.file = file;
+				event.phase = phase.name();
+				event.commit();
+			}
+		}
+	}
+
+	@Name("huffman.Phase")
+	@Label("Huffman Phase")
+	@Category("Huffman")
+	static class PhaseEvent extends Event {
+		@Label("File")
+		String file;
+
+		@Label("Phase")
+		String phase;
+	}
+
+	@Name("huffman.File")
+	@Label("Huffman File")
+	@Category("Huffman")
+	static class FileEvent extends Event {
+		@Label("File")
+		String file;
+
+		@Label("Operation")
+		String operation;
+
+		@Label("Bytes In")
+		@DataAmount
+		long bytesIn;
+
+		@Label("Bytes Out")
+		@DataAmount
+		long bytesOut;
+	}
+}
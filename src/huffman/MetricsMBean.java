@@ -0,0 +1,33 @@
+package huffman;
+
+/**
+ * What a Metrics object shows over JMX: totals for every file compressed or
+ * uncompressed since the process started.
+ */
+public interface MetricsMBean {
+	long getFiles();
+
+	long getBytesIn();
+
+	long getBytesOut();
+
+	long getCountMillis();
+
+	long getTreeMillis();
+
+	long getTableMillis();
+
+	long getEncodeMillis();
+
+	long getDecodeMillis();
+
+	long getIoWaitMillis();
+
+	long getElapsedMillis();
+
+	long getPhaseMillis();
+
+	double getMegabytesPerSecond();
+
+	double getBitsPerSymbol();
+}
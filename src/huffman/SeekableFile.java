@@ -0,0 +1,288 @@
+package huffman;
+
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+/**
+ * Random access to the uncompressed bytes of an "HB" file. Its blocks are
+ * compressed independently, so any range of bytes can be read by decoding
+ * only the blocks it falls in. Where the blocks are comes from the index at
+ * the end of the file; files without one (written by HuffmanOutputStream,
+ * or before there was an index) have their block headers scanned once
+ * instead, which seeks over the payloads without reading them.
+ *
+ * The last block decoded is kept, so reading a range a piece at a time
+ * decodes each block once.
+ */
+public class SeekableFile {
+	private RandomAccessFile file;
+	private long start;
+	private long offsets[];
+	private long positions[];
+	private int blocks;
+	private boolean indexed;
+	private DecoderCache decoders;
+	private int current;
+	private byte block[];
+	private byte payload[];
+	private int decoded;
+
+	/**
+	 * Opens an "HB" file and finds its blocks.
+	 * @param filename
+	 */
+	public SeekableFile(String filename) {
+		this.decoders = new DecoderCache(DecoderCache.DEFAULT_CAPACITY);
+		this.current = -1;
+		this.block = new byte[0];
+		this.payload = new byte[0];
+		try {
+			file = new RandomAccessFile(filename, "r");
+			long located[] = locate(file);
+
+			Assert.notFalse(located != null, "Random access needs a file compressed in blocks (-b)");
+			start = located[0];
+			indexed = readIndex(located[1]);
+			if (!indexed) {
+				scanBlocks();
+			}
+		}
+		catch (Exception e) {
+			System.out.println(e.getMessage());
+			System.exit(0);
+		}
+	}
+
+	/**
+	 * Tells whether a file can be read with random access, that is whether
+	 * it holds "HB" blocks.
+	 * @param filename
+	 * @return true for a file compressed with "-b" or written by HuffmanOutputStream
+	 */
+	public static boolean isBlockFile(String filename) {
+		try (RandomAccessFile file = new RandomAccessFile(filename, "r")) {
+			return locate(file) != null;
+		}
+		catch (Exception e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Finds where the "HB" data is. A BinaryFile header, with a 32-bit bit
+	 * count or a 64-bit one at the end, is only taken
+	 * for one if the count accounts for the rest of the file exactly and the
+	 * magic number follows it; otherwise the file has to be a stream, which
+	 * starts with the magic number.
+	 * @param file
+	 * @return the offsets of the magic number and just past the data, or null
+	 * @throws Exception
+	 */
+	private static long[] locate(RandomAccessFile file) throws Exception {
+		long length = file.length();
+
+		if (length < 4) {
+			return null;
+		}
+		file.seek(0);
+		int header = file.readInt();
+		long start = 4;
+		long end = length;
+		long bits = header;
+
+		if (header == BinaryFile.LONG_TRAILER && length >= 12) {
+			file.seek(length - 8);
+			bits = file.readLong();
+			end = length - 8;
+		}
+		if (bits >= 0 && start + (bits + 7) / 8 == end && hasMagic(file, start, end)) {
+			return new long[] { start, end };
+		}
+		if (hasMagic(file, 0, length)) {
+			return new long[] { 0, length };
+		}
+		return null;
+	}
+
+	/**
+	 * Tells whether the "HB" magic number is at offset.
+	 * @param file
+	 * @param offset
+	 * @param end
+	 * @return true if it is
+	 * @throws Exception
+	 */
+	private static boolean hasMagic(RandomAccessFile file, long offset, long end) throws Exception {
+		if (end - offset < BlockCodec.MAGIC.length) {
+			return false;
+		}
+		file.seek(offset);
+		return file.readByte() == BlockCodec.MAGIC[0] && file.readByte() == BlockCodec.MAGIC[1];
+	}
+
+	/**
+	 * Reads the index at the end of the file, if there is one.
+	 * @param end offset just past the last byte of the compressed data
+	 * @return true if the file has an index
+	 * @throws Exception
+	 */
+	private boolean readIndex(long end) throws Exception {
+		if (end - start < 6 + 4 + 8) {
+			return false;
+		}
+		file.seek(end - 8);
+		int count = file.readInt();
+
+		if (file.readInt() != BlockCodec.INDEX_MAGIC) {
+			return false;
+		}
+		Assert.notFalse(count >= 1 && 16L * count + 8 <= end - start, "Corrupt block index");
+		offsets = new long[count];
+		positions = new long[count];
+		file.seek(end - 8 - 16L * count);
+		for (int i = 0; i < count; i++) {
+			offsets[i] = file.readLong();
+			positions[i] = file.readLong();
+		}
+		blocks = count - 1;
+		return true;
+	}
+
+	/**
+	 * Finds the blocks by reading their headers, for files without an index.
+	 * @throws Exception
+	 */
+	private void scanBlocks() throws Exception {
+		long offset = 0;
+		long position = 6;
+
+		offsets = new long[64];
+		positions = new long[64];
+		blocks = 0;
+		while (true) {
+			if (blocks == offsets.length) {
+				offsets = Arrays.copyOf(offsets, 2 * blocks);
+				positions = Arrays.copyOf(positions, 2 * blocks);
+			}
+			offsets[blocks] = offset;
+			positions[blocks] = position;
+			file.seek(start + position);
+			int original = file.readInt();
+
+			if (original == 0) {
+				break;
+			}
+			int length = file.readInt();
+
+			Assert.notFalse(original > 0 && length >= 0, "Corrupt block header");
+			offset += original;
+			position += 8 + length;
+			blocks++;
+		}
+	}
+
+	/**
+	 * Gets the length of the uncompressed data.
+	 * @return length in bytes
+	 */
+	public long length() {
+		return offsets[blocks];
+	}
+
+	public int getBlocks() {
+		return blocks;
+	}
+
+	/**
+	 * Gets the number of blocks decoded so far.
+	 * @return blocks decoded
+	 */
+	public int getDecodedBlocks() {
+		return decoded;
+	}
+
+	/**
+	 * Tells whether the blocks were found through the index.
+	 * @return true if the file has an index
+	 */
+	public boolean isIndexed() {
+		return indexed;
+	}
+
+	public DecoderCache getDecoderCache() {
+		return decoders;
+	}
+
+	public void setDecoderCache(DecoderCache decoders) {
+		this.decoders = decoders;
+	}
+
+	/**
+	 * Reads uncompressed bytes starting at position, up to the end of the
+	 * block position falls in.
+	 * @param position offset in the uncompressed data
+	 * @param b
+	 * @param off
+	 * @param len
+	 * @return the number of bytes read, or -1 if position is at or past the end
+	 */
+	public int read(long position, byte b[], int off, int len) {
+		if (position >= length() || position < 0) {
+			return -1;
+		}
+		int i = Arrays.binarySearch(offsets, 0, blocks + 1, position);
+
+		if (i < 0) {
+			i = -i - 2;
+		}
+		load(i);
+		int n = (int) Math.min(len, offsets[i + 1] - position);
+
+		System.arraycopy(block, (int) (position - offsets[i]), b, off, n);
+		return n;
+	}
+
+	/**
+	 * Decodes block i, unless it is the one decoded last.
+	 * @param i
+	 */
+	private void load(int i) {
+		if (i == current) {
+			return;
+		}
+		try {
+			file.seek(start + positions[i]);
+			int original = file.readInt();
+			int length = file.readInt();
+
+			Assert.notFalse(original == offsets[i + 1] - offsets[i] && length >= 0, "Corrupt block index");
+			if (block.length < original) {
+				block = new byte[original];
+			}
+			if (payload.length < length) {
+				payload = new byte[length];
+			}
+			file.readFully(payload, 0, length);
+			BlockCodec.decodeBlock(payload, length, block, 0, original, decoders);
+			current = i;
+			decoded++;
+		}
+		catch (Exception e) {
+			System.out.println(e.getMessage());
+			System.exit(0);
+		}
+	}
+
+	/**
+	 * Closes the file.
+	 */
+	public void close() {
+		try {
+			file.close();
+		}
+		catch (Exception e) {
+			System.out.println(e.getMessage());
+			System.exit(0);
+		}
+	}
+}
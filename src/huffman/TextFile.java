@@ -0,0 +1,426 @@
+package huffman;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+public class TextFile {
+    
+/**
+ * Text File constructor.  Open a file for reading, or create
+ * a file for writing.  If we create a file, and a file already
+ * exists with that name, the old file will be removed.
+ * @param filename The name of the file to read from or write to
+ * @param readOrWrite 'w' or 'W' for an output file (open for writing), 
+ *        'r' or 'R' for an input file (open for reading), and 'm' or 'M'
+ *        for an input file that is read through memory-mapped windows
+ * @param bufferSize The size in bytes of the read/write buffer
+ */
+    public TextFile(String filename, char readOrWrite, int bufferSize) 
+    {
+	Assert.notFalse(bufferSize > 0,"Buffer size must be positive");
+	try 
+        {
+	    if (readOrWrite == 'w' || readOrWrite == 'W') 
+            {
+		inputFile = false;
+		file = new RandomAccessFile(filename, "rw");
+		file.setLength(0);
+	    } else if (readOrWrite == 'r' || readOrWrite == 'R') 
+            {  
+		inputFile = true;
+		file = new RandomAccessFile(filename, "r");
+		length = file.length();
+	    } else if (readOrWrite == 'm' || readOrWrite == 'M') 
+            {  
+		inputFile = true;
+		mapped = true;
+		file = new RandomAccessFile(filename, "r");
+		length = file.length();
+	    }
+	} 
+        catch(Exception e) 
+        {
+	    System.out.println(e.getMessage());
+	    System.exit(0);
+	}
+	position = 0;
+	buffer = new byte[mapped ? 0 : bufferSize];
+	buf_pos = 0;
+	buf_length = 0;
+    }
+
+/**
+ * Text File constructor with the default buffer size.  All reads and
+ * writes go through an in-memory buffer of DEFAULT_BUFFER_SIZE bytes,
+ * so the file is touched once per buffer instead of once per character.
+ * @param filename The name of the file to read from or write to
+ * @param readOrWrite 'w' or 'W' for an output file (open for writing), 
+ *        'r' or 'R' for an input file (open for reading), and 'm' or 'M'
+ *        for an input file that is read through memory-mapped windows
+ */
+    public TextFile(String filename, char readOrWrite) 
+    {
+	this(filename, readOrWrite, DEFAULT_BUFFER_SIZE);
+    }
+    
+/**
+ * Checks to see if we are at the end of a file.  This method is only 
+ * valid for input files, calling EndOfFile on an output fill will
+ * cause the program to exit.
+ * @return True if we are at the end of an input file, and false otherwise
+ */
+    public boolean EndOfFile() 
+    {
+	Assert.notFalse(inputFile,"EndOfFile only relevant for input files");
+	return position == length;
+    }
+
+/**
+ * Returns the length of an input file in bytes.  The length is read
+ * once when the file is opened.
+ * @return The number of bytes in the input file
+ */
+    public long length() 
+    {
+	Assert.notFalse(inputFile,"Length only relevant for input files");
+	return length;
+    }
+    
+/**
+ * Calculates the size of the file in bits. For every character it adds 8 bits to the
+ * size count.
+ *    
+ * @return size - size of the text file
+ */
+    public long calculateFileSize() {
+    	long size = 0;
+    	
+    	while (!EndOfFile()) {
+    		readChar();
+    		size += 8;
+    	}
+    	
+    	System.out.println(size);
+    	return size;
+    }
+
+/**
+ * Returns the channel of the underlying file, for positional reads that
+ * do not move the file pointer used by readChar and read.
+ * @return The file channel
+ */
+    public FileChannel getChannel() 
+    {
+	return file.getChannel();
+    }
+
+/**
+ * Tests whether the input file is read through memory-mapped windows.
+ * @return True for files opened with 'm'
+ */
+    public boolean isMapped() 
+    {
+	return mapped;
+    }
+
+/**
+ * Returns the rest of the current memory-mapped window, mapping the next
+ * window of up to WINDOW_SIZE bytes first if the current one is used up.
+ * The returned bytes count as read.  Windows let files larger than 2 GB
+ * be scanned in place, without copying them through the heap.  This
+ * method is only valid for files opened with 'm'.
+ * @return The unread part of the window, or null at the end of the file
+ */
+    public ByteBuffer nextWindow() 
+    {
+	Assert.notFalse(mapped,"Only mapped files have windows");
+	if (EndOfFile()) 
+        {
+	    return null;
+	}
+	if (window == null || !window.hasRemaining()) 
+        {
+	    mapWindow();
+	}
+	ByteBuffer rest = window.slice();
+	window.position(window.limit());
+	position += rest.remaining();
+	return rest;
+    }
+
+/**
+ * Map the window of the file that starts at the current position.
+ */
+    private void mapWindow() 
+    {
+	try 
+        {
+	    window = file.getChannel().map(FileChannel.MapMode.READ_ONLY, position,
+					   Math.min(WINDOW_SIZE, length - position));
+	} 
+        catch (Exception e) 
+        {
+	    System.out.println(e.getMessage());
+	    System.exit(0);
+	}
+    }
+
+/**
+ * Read in the next character from the input file
+ * This method is only valid for input files, and
+ * will throw an halt program execution if called on an output file. 
+ * This method will also halt execution if you try to read past the
+ * end of a file.
+ * @return The next character from an input file
+ */    
+    public char readChar() 
+    {
+	Assert.notFalse(inputFile,"Can only read from input files!");
+	Assert.notFalse(!EndOfFile(),"Read past end of file!");
+	if (mapped) 
+        {
+	    if (window == null || !window.hasRemaining()) 
+            {
+		mapWindow();
+	    }
+	    position++;
+	    return (char) (window.get() & 0xFF);
+	}
+	if (buf_pos == buf_length) 
+        {
+	    fill();
+	}
+	position++;
+	return (char) (buffer[buf_pos++] & 0xFF);
+    }
+
+/**
+ * Read up to len bytes from the input file into b, starting at
+ * b[off].  Bytes left in the buffer are handed out first; requests at
+ * least as large as the buffer are then read straight into b.  This
+ * method is only valid for input files.
+ * @param b The array to read into
+ * @param off The first index of b to fill
+ * @param len The maximum number of bytes to read
+ * @return The number of bytes read, or -1 at the end of the file
+ */
+    public int read(byte[] b, int off, int len) 
+    {
+	Assert.notFalse(inputFile,"Can only read from input files!");
+	if (EndOfFile()) 
+        {
+	    return -1;
+	}
+	if (mapped) 
+        {
+	    if (window == null || !window.hasRemaining()) 
+            {
+		mapWindow();
+	    }
+	    int n = Math.min(len, window.remaining());
+	    window.get(b, off, n);
+	    position += n;
+	    return n;
+	}
+	int count = Math.min(len, buf_length - buf_pos);
+	System.arraycopy(buffer, buf_pos, b, off, count);
+	buf_pos += count;
+	position += count;
+	try 
+        {
+	    if (count < len && len - count >= buffer.length) 
+            {
+		long start = System.nanoTime();
+		int n = file.read(b, off + count, len - count);
+		ioWait(start);
+		if (n > 0) 
+                {
+		    count += n;
+		    position += n;
+		}
+	    }
+	    else if (count == 0) 
+            {
+		fill();
+		count = Math.min(len, buf_length);
+		System.arraycopy(buffer, 0, b, off, count);
+		buf_pos = count;
+		position += count;
+	    }
+	} 
+        catch (Exception e) 
+        {
+	    System.out.println(e.getMessage());
+	    System.exit(0);
+	}
+	return count;
+    }
+
+/**
+ * Refill the read buffer from the current file pointer.
+ */
+    private void fill() 
+    {
+	try 
+        {
+	    long start = System.nanoTime();
+	    buf_length = Math.max(file.read(buffer, 0, buffer.length), 0);
+	    buf_pos = 0;
+	    ioWait(start);
+	} 
+        catch (Exception e) 
+        {
+	    System.out.println(e.getMessage());
+	    System.exit(0);
+	}
+    }
+
+/**
+ * Write a character to an output file. This method is only valid for
+ * output files, and will halt execution if called on an input file.
+ * @param c The character to write to the output file.
+ */   
+    public void writeChar(char c) 
+    {
+	Assert.notFalse(!inputFile,"Can only write to output files!");
+	if (buf_length == buffer.length) 
+        {
+	    flush();
+	}
+	buffer[buf_length++] = (byte) c;
+    }
+
+/**
+ * Write len bytes from b, starting at b[off], to an output file.
+ * Small writes are collected in the buffer; writes at least as large
+ * as the buffer go straight to the file.  This method is only valid
+ * for output files.
+ * @param b The bytes to write
+ * @param off The first index of b to write
+ * @param len The number of bytes to write
+ */
+    public void write(byte[] b, int off, int len) 
+    {
+	Assert.notFalse(!inputFile,"Can only write to output files!");
+	if (len > buffer.length - buf_length) 
+        {
+	    flush();
+	}
+	if (len >= buffer.length) 
+        {
+	    try 
+            {
+		long start = System.nanoTime();
+		file.write(b, off, len);
+		ioWait(start);
+	    } 
+            catch (Exception e) 
+            {
+		System.out.println(e.getMessage());
+		System.exit(0);
+	    }
+	    return;
+	}
+	System.arraycopy(b, off, buffer, buf_length, len);
+	buf_length += len;
+    }
+
+/**
+ * Count the time since start as I/O wait, if metrics are kept.
+ * @param start The System.nanoTime() the read or write started at
+ */
+    private void ioWait(long start) 
+    {
+	if (metrics != null) 
+        {
+	    metrics.add(Metrics.Phase.IO, System.nanoTime() - start);
+	}
+    }
+
+/**
+ * Keep track of the time spent reading or writing the file.
+ * @param metrics The metrics to add the I/O wait to
+ */
+    public void setMetrics(Metrics metrics) 
+    {
+	this.metrics = metrics;
+    }
+
+/**
+ * Write the buffered bytes of an output file to disk.
+ */
+    private void flush() 
+    {
+	try 
+        {
+	    long start = System.nanoTime();
+	    file.write(buffer, 0, buf_length);
+	    buf_length = 0;
+	    ioWait(start);
+	} 
+        catch (Exception e) 
+        {
+	    System.out.println(e.getMessage());
+	    System.exit(0);
+	}
+    }
+
+/**
+ * Close the file (works for input and output files). Output files will
+ * not be properly written to disk if this method is not called.
+ */    
+    public void close() 
+    {
+	try 
+        {
+	    if (!inputFile) 
+            {
+		flush();
+	    }
+	    file.close();
+	} 
+        catch (Exception e) 
+        {
+	    System.out.println(e.getMessage());
+	    System.exit(0);
+	}
+
+    }
+    
+/**
+ * Rewind the input file to the beginning, so we can reread 
+ * the file.  Only valid for input files.
+ */    
+    public void rewind() 
+    {
+	try 
+        {
+	    Assert.notFalse(inputFile,"Can only rewind input files!");
+	    file.seek(0);
+	    position = 0;
+	    buf_pos = 0;
+	    buf_length = 0;
+	    window = null;
+	} 
+        catch (Exception e) 
+        {
+	    System.out.println(e.getMessage());
+	    System.exit(0);
+	}
+    }
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 18;
+    public static final long WINDOW_SIZE = 1L << 30;
+
+    private boolean inputFile;
+    private RandomAccessFile file;
+    private long position;
+    private long length;
+    private byte[] buffer;
+    private int buf_pos;
+    private int buf_length;
+    private boolean mapped;
+    private MappedByteBuffer window;
+    private Metrics metrics;
+}
\ No newline at end of file
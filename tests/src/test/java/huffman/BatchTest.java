@@ -0,0 +1,85 @@
+package huffman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.provider.Arguments;
+
+/**
+ * "-batch" compresses and uncompresses many files at once, from a directory
+ * or from a list file, on several threads.
+ */
+public class BatchTest {
+	@TempDir
+	Path dir;
+
+	private Path files;
+	private List<byte[]> data;
+
+	@BeforeEach
+	void write() throws Exception {
+		files = Files.createDirectory(dir.resolve("files"));
+		data = new ArrayList<byte[]>();
+		for (Arguments input : RoundTripTest.inputs().toList()) {
+			data.add((byte[]) input.get()[1]);
+		}
+		for (int i = 0; i < data.size(); i++) {
+			Files.write(files.resolve("file" + i), data.get(i));
+		}
+	}
+
+	@Test
+	void directory() throws Exception {
+		Path compressed = dir.resolve("compressed");
+		Path uncompressed = dir.resolve("uncompressed");
+
+		Driver.main(new String[] { "-c", "-batch", "-p", "3", files.toString(), compressed.toString() });
+		for (int i = 0; i < data.size(); i++) {
+			assertTrue(Files.exists(compressed.resolve("file" + i + Driver.BATCH_SUFFIX)));
+		}
+		Driver.main(new String[] { "-u", "-batch", "-p", "3", compressed.toString(), uncompressed.toString() });
+		for (int i = 0; i < data.size(); i++) {
+			assertArrayEquals(data.get(i), Files.readAllBytes(uncompressed.resolve("file" + i)));
+		}
+		assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName("huffman:type=Metrics")));
+	}
+
+	/**
+	 * A list file names one file per line; blank lines are skipped, and the
+	 * options of a single file, here blocks, apply to each one.
+	 */
+	@Test
+	void list() throws Exception {
+		Path list = dir.resolve("list");
+		Path compressed = dir.resolve("compressed");
+		Path uncompressed = dir.resolve("uncompressed");
+		StringBuilder names = new StringBuilder();
+
+		for (int i = 0; i < data.size(); i += 2) {
+			names.append(files.resolve("file" + i)).append("\n\n");
+		}
+		Files.writeString(list, names);
+		Driver.main(new String[] { "-c", "-batch", "-b", "1", "@" + list, compressed.toString() });
+		try (Stream<Path> listed = Files.list(compressed)) {
+			assertEquals((data.size() + 1) / 2, listed.count());
+		}
+		assertEquals('B', RoundTripTest.magic(compressed.resolve("file4" + Driver.BATCH_SUFFIX)));
+		Driver.main(new String[] { "-u", "-batch", compressed.toString(), uncompressed.toString() });
+		for (int i = 0; i < data.size(); i += 2) {
+			assertArrayEquals(data.get(i), Files.readAllBytes(uncompressed.resolve("file" + i)));
+		}
+	}
+}
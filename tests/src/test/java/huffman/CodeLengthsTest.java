@@ -0,0 +1,87 @@
+package huffman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Code length limits ("-m"): the lengths they give, and the limits every
+ * encoder turns down.
+ */
+public class CodeLengthsTest {
+	@TempDir
+	Path dir;
+
+	@ParameterizedTest
+	@ValueSource(ints = { 5, 8, 15, 20, 27, CodeLengths.MAX_LIMIT })
+	void limited(int limit) throws Exception {
+		byte data[] = HuffmanDecoderTest.fibonacci(28);
+		long frequency[] = new long[256];
+
+		FrequencyCounter.count(data, 0, data.length, frequency);
+		int lengths[] = CodeLengths.limited(frequency, limit);
+
+		assertEquals(Math.min(limit, 27), CodeLengths.maxLength(lengths));
+		assertTrue(CodeLengths.fitsPrefixCode(lengths));
+
+		for (String format : new String[] { "-f", "-b" }) {
+			Path input = Files.write(dir.resolve("input"), data);
+			Path compressed = dir.resolve("compressed");
+			Path output = dir.resolve("output");
+
+			Driver.main(new String[] { "-c", format, "-m", "" + limit, input.toString(), compressed.toString() });
+			Driver.main(new String[] { "-u", compressed.toString(), output.toString() });
+			assertArrayEquals(data, Files.readAllBytes(output));
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 0, -1, CodeLengths.MAX_LIMIT + 1, HuffmanDecoder.MAX_CODE_LENGTH })
+	void badLimits(int limit) throws Exception {
+		Path corpus = Files.write(dir.resolve("corpus"), RoundTripTest.text(1000));
+
+		assertThrows(IllegalArgumentException.class, () -> new Compress().setMaxCodeLength(limit));
+		assertThrows(IllegalArgumentException.class, () -> new BlockCodec(BlockCodec.MIN_BLOCK_SIZE, limit, 1));
+		assertThrows(IllegalArgumentException.class, () -> new Archive(BlockCodec.MIN_BLOCK_SIZE, limit, 1));
+		assertThrows(IllegalArgumentException.class,
+				() -> new HuffmanOutputStream(new ByteArrayOutputStream(), BlockCodec.MIN_BLOCK_SIZE, limit));
+		assertThrows(IllegalArgumentException.class, () -> new ContextHuffman(limit));
+		assertThrows(IllegalArgumentException.class, () -> Dictionary.train(corpus.toString(), limit));
+	}
+
+	/**
+	 * A tree deeper than the decoder takes is written as canonical codes.
+	 */
+	@Test
+	void deepTree() {
+		Compress data = new Compress();
+		long frequency[] = new long[256];
+		long a = 1;
+		long b = 1;
+
+		for (int c = 0; c < 70; c++) {
+			frequency[c] = a;
+			long next = a + b;
+			a = b;
+			b = next;
+		}
+		data.setFrequency(frequency);
+		data.buildFrequencyArray();
+		data.buildHuffmanTree();
+		assertEquals(69, data.getTree().depth());
+		data.setFormat('F');
+		data.buildLookUpTable();
+		assertEquals('C', data.getFormat());
+		assertEquals(Compress.DEFAULT_MAX_CODE_LENGTH, CodeLengths.maxLength(data.getLengths()));
+	}
+}
@@ -0,0 +1,121 @@
+package huffman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Decoders are shared by headers with the same bits, and the input is left
+ * right after the header whether the decoder was cached or not.
+ */
+public class DecoderCacheTest {
+	@TempDir
+	Path dir;
+
+	@Test
+	void lengths() {
+		long frequency[] = new long[256];
+		byte text[] = RoundTripTest.text(5000);
+
+		FrequencyCounter.count(text, 0, text.length, frequency);
+		int lengths[] = CodeLengths.limited(frequency, 15);
+		DecoderCache cache = new DecoderCache(DecoderCache.DEFAULT_CAPACITY);
+
+		HuffmanDecoder first = cache.readLengths(header(lengths));
+		BitReader again = header(lengths);
+		HuffmanDecoder second = cache.readLengths(again);
+
+		assertSame(first, second);
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(0x5A5, again.peekBits(12));
+
+		lengths['e']++;
+		lengths['t']++;
+		assertNotSame(first, cache.readLengths(header(lengths)));
+		assertEquals(2, cache.getMisses());
+	}
+
+	@Test
+	void tree() throws Exception {
+		Path input = Files.write(dir.resolve("input"), RoundTripTest.text(5000));
+		Path compressed = dir.resolve("compressed");
+		DecoderCache cache = new DecoderCache(DecoderCache.DEFAULT_CAPACITY);
+		HuffmanTree tree = new HuffmanTree();
+		HuffmanDecoder decoders[] = new HuffmanDecoder[2];
+
+		Driver.main(new String[] { "-c", "-f", "-t", input.toString(), compressed.toString() });
+		for (int i = 0; i < decoders.length; i++) {
+			BinaryFile file = new BinaryFile(compressed.toString(), 'r');
+
+			assertEquals('F', file.readMagicNumber());
+			decoders[i] = cache.readTree(file, i == 0 ? null : tree);
+			file.close();
+		}
+		assertSame(decoders[0], decoders[1]);
+		assertEquals(1, cache.getHits());
+
+		BinaryFile file = new BinaryFile(compressed.toString(), 'r');
+		HuffmanTree read = new HuffmanTree();
+		long codes[] = new long[256];
+		int lengths[] = new int[256];
+		long expected[] = new long[256];
+		int expectedLengths[] = new int[256];
+
+		file.readMagicNumber();
+		file.buildTree(read);
+		file.close();
+		read.codes(expected, expectedLengths);
+		tree.codes(codes, lengths);
+		assertArrayEquals(expected, codes);
+		assertArrayEquals(expectedLengths, lengths);
+	}
+
+	/**
+	 * Blocks of the same text have the same header, so only the first one
+	 * builds a decoder.
+	 */
+	@Test
+	void blocks() throws Exception {
+		byte block[] = RoundTripTest.text(BlockCodec.MIN_BLOCK_SIZE);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DecoderCache cache = new DecoderCache(DecoderCache.DEFAULT_CAPACITY);
+
+		try (HuffmanOutputStream out = new HuffmanOutputStream(bytes, BlockCodec.MIN_BLOCK_SIZE, 15)) {
+			for (int i = 0; i < 8; i++) {
+				out.write(block);
+			}
+		}
+		try (InputStream in = new HuffmanInputStream(new ByteArrayInputStream(bytes.toByteArray()), cache)) {
+			byte data[] = in.readAllBytes();
+
+			assertEquals(8 * block.length, data.length);
+		}
+		assertEquals(1, cache.getMisses());
+		assertEquals(7, cache.getHits());
+	}
+
+	/**
+	 * A code length header followed by a 12-bit marker.
+	 * @param lengths
+	 * @return reader at the header
+	 */
+	private static BitReader header(int lengths[]) {
+		BitWriter out = new BitWriter(64);
+
+		CodeLengths.write(out, lengths);
+		out.writeBits(0x5A5, 12);
+		out.flush();
+		return new BitReader(out.getBytes(), 0, out.length());
+	}
+}
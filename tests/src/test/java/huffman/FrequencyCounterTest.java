@@ -0,0 +1,86 @@
+package huffman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Counting bytes in blocks, with the same scratch counters again and again,
+ * and over ranges of a file on several threads ("-p").
+ */
+public class FrequencyCounterTest {
+	@TempDir
+	Path dir;
+
+	/**
+	 * Counts the slow way.
+	 * @param data
+	 * @return frequency
+	 */
+	private static long[] expected(byte data[]) {
+		long frequency[] = new long[256];
+
+		for (byte b : data) {
+			frequency[b & 0xFF]++;
+		}
+		return frequency;
+	}
+
+	@Test
+	void scratch() {
+		byte text[] = RoundTripTest.text(10007);
+		byte random[] = RoundTripTest.random(5003);
+		int counts[] = new int[FrequencyCounter.SCRATCH_SIZE];
+		long frequency[] = new long[256];
+
+		// the counters are left cleared, so the second call counts only its own bytes
+		FrequencyCounter.count(text, 0, text.length, frequency, counts);
+		assertArrayEquals(new int[FrequencyCounter.SCRATCH_SIZE], counts);
+		frequency = new long[256];
+		FrequencyCounter.count(random, 1, random.length - 2, frequency, counts);
+		assertArrayEquals(expected(Arrays.copyOfRange(random, 1, random.length - 1)), frequency);
+
+		frequency = new long[256];
+		FrequencyCounter.count(ByteBuffer.wrap(text), frequency);
+		FrequencyCounter.count(text, 0, text.length, frequency);
+		long twice[] = expected(text);
+		for (int c = 0; c < 256; c++) {
+			twice[c] *= 2;
+		}
+		assertArrayEquals(twice, frequency);
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void parallel(boolean mapped) throws Exception {
+		// more than two ranges, and a length that is not a multiple of anything
+		byte data[] = new byte[(int) (2 * FrequencyCounter.SPLIT_SIZE + 12345)];
+		byte text[] = RoundTripTest.text(1 << 20);
+
+		for (int i = 0; i < data.length; i += text.length) {
+			System.arraycopy(text, 0, data, i, Math.min(text.length, data.length - i));
+		}
+		System.arraycopy(RoundTripTest.random(70000), 0, data, data.length - 70000, 70000);
+		Path input = Files.write(dir.resolve("input"), data);
+
+		try (FileChannel channel = FileChannel.open(input)) {
+			assertArrayEquals(expected(data), FrequencyCounter.countParallel(channel, data.length, 3, mapped));
+		}
+
+		Path compressed = dir.resolve("compressed");
+		Path output = dir.resolve("output");
+
+		Driver.main(new String[] { "-c", "-p", "3", mapped ? "-mmap" : "-f", input.toString(), compressed.toString() });
+		Driver.main(new String[] { "-u", compressed.toString(), output.toString() });
+		assertArrayEquals(data, Files.readAllBytes(output));
+	}
+}
@@ -0,0 +1,121 @@
+package huffman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Decoding codes of every length the decoder takes, those too long for its
+ * second tables included.
+ */
+public class HuffmanDecoderTest {
+	@TempDir
+	Path dir;
+
+	/**
+	 * Lengths 1, 2, ..., longest - 1, longest, longest: the most skewed code
+	 * there is, as Fibonacci frequencies give.
+	 * @param longest
+	 * @return lengths
+	 */
+	private static int[] skewed(int longest) {
+		int lengths[] = new int[256];
+
+		for (int c = 0; c < longest; c++) {
+			lengths[c] = c + 1;
+		}
+		lengths[longest] = longest;
+		return lengths;
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 11, 12, 20, 21, 32, 44, 56 })
+	void longCodes(int longest) {
+		int lengths[] = skewed(longest);
+		long codes[] = CodeLengths.canonicalCodes(lengths);
+		byte data[] = new byte[20000];
+		Random random = new Random(longest);
+		BitWriter out = new BitWriter(1024);
+
+		for (int i = 0; i < data.length; i++) {
+			// every character shows up, the ones with long codes too
+			data[i] = (byte) (i <= longest ? i : random.nextInt(longest + 1));
+			out.writeBits(codes[data[i]], lengths[data[i]]);
+		}
+		out.flush();
+
+		HuffmanDecoder decoder = new HuffmanDecoder(lengths);
+		byte decoded[] = new byte[data.length];
+
+		decoder.decode(new BitReader(out.getBytes(), 0, out.length()), decoded, 0, decoded.length);
+		assertArrayEquals(data, decoded);
+		for (int c = 0; c <= longest; c++) {
+			BitWriter one = new BitWriter(16);
+
+			one.writeBits(codes[c], lengths[c]);
+			one.flush();
+			assertEquals(c, decoder.decodeChar(new BitReader(one.getBytes(), 0, one.length())));
+		}
+	}
+
+	/**
+	 * A file with Fibonacci frequencies gets an unlimited "HF" tree as deep as
+	 * there are characters.
+	 */
+	@Test
+	void fibonacciTree() throws Exception {
+		Path input = dir.resolve("input");
+		Path compressed = dir.resolve("compressed");
+		Path output = dir.resolve("output");
+
+		Files.write(input, fibonacci(28));
+		Driver.main(new String[] { "-c", "-f", "-t", input.toString(), compressed.toString() });
+		Driver.main(new String[] { "-u", compressed.toString(), output.toString() });
+		assertArrayEquals(Files.readAllBytes(input), Files.readAllBytes(output));
+	}
+
+	/**
+	 * Characters 0 to n - 1, character c as often as the c-th Fibonacci
+	 * number, shuffled.
+	 * @param n
+	 * @return data
+	 */
+	static byte[] fibonacci(int n) {
+		long a = 1;
+		long b = 1;
+		int size = 0;
+		long counts[] = new long[n];
+
+		for (int c = 0; c < n; c++) {
+			counts[c] = a;
+			size += a;
+			long next = a + b;
+			a = b;
+			b = next;
+		}
+		byte data[] = new byte[size];
+		int i = 0;
+
+		for (int c = 0; c < n; c++) {
+			for (long k = 0; k < counts[c]; k++) {
+				data[i++] = (byte) c;
+			}
+		}
+		Random random = new Random(5);
+		for (int j = data.length - 1; j > 0; j--) {
+			int k = random.nextInt(j + 1);
+			byte t = data[j];
+			data[j] = data[k];
+			data[k] = t;
+		}
+		return data;
+	}
+}
@@ -0,0 +1,299 @@
+package huffman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Compresses and uncompresses inputs through Driver in every format, and
+ * checks that the bytes come back and that the file has the format asked for.
+ */
+public class RoundTripTest {
+	/** Compress flags of each format, by its magic number. */
+	private static final String FORMATS[][] = {
+		{ "C", "-f" },
+		{ "F", "-f", "-t" },
+		{ "B", "-b", "1" },
+		{ "I", "-f", "-i" },
+		{ "O", "-f", "-o1" },
+		{ "A", "-a" },
+	};
+
+	@TempDir
+	Path dir;
+
+	/**
+	 * Inputs every format has to get right: nothing, a single character,
+	 * two characters, text and random bytes.
+	 * @return name and bytes of each input
+	 */
+	static Stream<Arguments> inputs() {
+		return Stream.of(
+				Arguments.of("empty", new byte[0]),
+				Arguments.of("one byte", new byte[] { 'a' }),
+				Arguments.of("single symbol", repeat((byte) 'a', 5000)),
+				Arguments.of("zeros", repeat((byte) 0, 3000)),
+				Arguments.of("two symbols", twoSymbols(4000)),
+				Arguments.of("text", text(200000)),
+				Arguments.of("random", random(70000)));
+	}
+
+	/**
+	 * Every format against every input.
+	 * @return format, flags, name and bytes
+	 */
+	static Stream<Arguments> formatsAndInputs() {
+		List<Arguments> cases = new ArrayList<Arguments>();
+
+		for (String format[] : FORMATS) {
+			inputs().forEach(input -> cases.add(Arguments.of(format[0].charAt(0),
+					Arrays.copyOfRange(format, 1, format.length), input.get()[0], input.get()[1])));
+		}
+		return cases.stream();
+	}
+
+	@ParameterizedTest(name = "H{0} {2}")
+	@MethodSource("formatsAndInputs")
+	void roundTrip(char format, String flags[], String name, byte data[]) throws Exception {
+		Path input = write("input", data);
+		Path compressed = dir.resolve("compressed");
+		Path output = dir.resolve("output");
+
+		Driver.main(concat(new String[] { "-c" }, flags, new String[] { input.toString(), compressed.toString() }));
+		assertEquals(format, magic(compressed));
+		Driver.main(new String[] { "-u", compressed.toString(), output.toString() });
+		assertArrayEquals(data, Files.readAllBytes(output));
+	}
+
+	@ParameterizedTest(name = "mmap {0}")
+	@MethodSource("inputs")
+	void mappedRoundTrip(String name, byte data[]) throws Exception {
+		Path input = write("input", data);
+		Path compressed = dir.resolve("compressed");
+		Path output = dir.resolve("output");
+
+		Driver.main(new String[] { "-c", "-f", "-mmap", input.toString(), compressed.toString() });
+		Driver.main(new String[] { "-u", "-mmap", compressed.toString(), output.toString() });
+		assertArrayEquals(data, Files.readAllBytes(output));
+	}
+
+	@ParameterizedTest(name = "HS {0}")
+	@MethodSource("inputs")
+	void storedWithoutForce(String name, byte data[]) throws Exception {
+		Path input = write("input", data);
+		Path compressed = dir.resolve("compressed");
+		Path output = dir.resolve("output");
+
+		Driver.main(new String[] { "-c", input.toString(), compressed.toString() });
+		if (name.equals("random") || name.equals("empty")) {
+			assertEquals('S', magic(compressed));
+		}
+		Driver.main(new String[] { "-u", compressed.toString(), output.toString() });
+		assertArrayEquals(data, Files.readAllBytes(output));
+	}
+
+	@ParameterizedTest(name = "sampled {0}")
+	@MethodSource("inputs")
+	void sampled(String name, byte data[]) throws Exception {
+		Path input = write("input", data);
+		Path compressed = dir.resolve("compressed");
+		Path output = dir.resolve("output");
+
+		for (String flags[] : new String[][] { { "-s" }, { "-s", "2" }, { "-f", "-s", "3" }, { "-f", "-s", "-mmap" } }) {
+			Driver.main(concat(new String[] { "-c" }, flags, new String[] { input.toString(), compressed.toString() }));
+			Driver.main(new String[] { "-u", compressed.toString(), output.toString() });
+			assertArrayEquals(data, Files.readAllBytes(output));
+		}
+	}
+
+	/**
+	 * Characters in runs as long as the Fibonacci numbers: the samples miss
+	 * most of the runs, and codes built from them make the file bigger, so
+	 * it has to be stored.
+	 */
+	@Test
+	void sampledNeverGrows() throws Exception {
+		byte data[] = new byte[832039];
+		int i = 0;
+		long a = 1;
+		long b = 1;
+
+		for (int c = 0; i < data.length; c++) {
+			for (long k = 0; k < a; k++) {
+				data[i++] = (byte) c;
+			}
+			long next = a + b;
+			a = b;
+			b = next;
+		}
+		Path input = write("input", data);
+		Path compressed = dir.resolve("compressed");
+		Path output = dir.resolve("output");
+
+		for (String rate : new String[] { "2", "8", "16" }) {
+			Driver.main(new String[] { "-c", "-s", rate, input.toString(), compressed.toString() });
+			assertTrue(Files.size(compressed) <= 4 + 2 + data.length);
+			Driver.main(new String[] { "-u", compressed.toString(), output.toString() });
+			assertArrayEquals(data, Files.readAllBytes(output));
+		}
+	}
+
+	@ParameterizedTest(name = "HD {0}")
+	@MethodSource("inputs")
+	void dictionary(String name, byte data[]) throws Exception {
+		Path input = write("input", data);
+		Path corpus = write("corpus", text(100000));
+		Path dictionary = dir.resolve("dictionary");
+		Path compressed = dir.resolve("compressed");
+		Path output = dir.resolve("output");
+
+		Driver.main(new String[] { "-train", corpus.toString(), dictionary.toString() });
+		assertEquals('T', magic(dictionary));
+		Driver.main(new String[] { "-c", "-f", "-d", dictionary.toString(), input.toString(), compressed.toString() });
+		assertEquals('D', magic(compressed));
+		Driver.main(new String[] { "-u", "-d", dictionary.toString(), compressed.toString(), output.toString() });
+		assertArrayEquals(data, Files.readAllBytes(output));
+	}
+
+	@ParameterizedTest(name = "stream {0}")
+	@MethodSource("inputs")
+	void stream(String name, byte data[]) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (HuffmanOutputStream out = new HuffmanOutputStream(bytes, BlockCodec.MIN_BLOCK_SIZE, 15)) {
+			out.write(data);
+		}
+		try (InputStream in = new HuffmanInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			assertArrayEquals(data, in.readAllBytes());
+		}
+	}
+
+	@Test
+	void archive() throws Exception {
+		Path files = Files.createDirectory(dir.resolve("files"));
+		Path archive = dir.resolve("archive");
+		Path extracted = dir.resolve("extracted");
+		List<Arguments> all = inputs().toList();
+
+		for (int i = 0; i < all.size(); i++) {
+			Files.write(files.resolve("file" + i), (byte[]) all.get(i).get()[1]);
+		}
+		Driver.main(new String[] { "-c", "-archive", "-b", "1", files.toString(), archive.toString() });
+		assertArrayEquals(Archive.MAGIC, Arrays.copyOf(Files.readAllBytes(archive), 2));
+		Driver.main(new String[] { "-u", "-archive", archive.toString(), extracted.toString() });
+		for (int i = 0; i < all.size(); i++) {
+			assertArrayEquals((byte[]) all.get(i).get()[1], Files.readAllBytes(extracted.resolve("file" + i)));
+		}
+
+		Path one = dir.resolve("one");
+		Driver.main(new String[] { "-u", "-archive", "-x", "file5", archive.toString(), one.toString() });
+		assertArrayEquals((byte[]) all.get(5).get()[1], Files.readAllBytes(one));
+	}
+
+	/**
+	 * Files whose bit count fits in an int start with it as an int, so builds
+	 * from before the 64-bit count can read them.
+	 */
+	@Test
+	void intHeader() throws Exception {
+		Path input = write("input", text(50000));
+		Path compressed = dir.resolve("compressed");
+
+		Driver.main(new String[] { "-c", "-f", "-t", input.toString(), compressed.toString() });
+		try (DataInputStream in = new DataInputStream(Files.newInputStream(compressed))) {
+			int bits = in.readInt();
+
+			assertEquals(Files.size(compressed), 4 + (bits + 7) / 8);
+		}
+	}
+
+	private Path write(String name, byte data[]) throws Exception {
+		return Files.write(dir.resolve(name), data);
+	}
+
+	/**
+	 * Reads the format character after the "H" of a file's magic number.
+	 * @param file
+	 * @return the format character
+	 */
+	static char magic(Path file) {
+		BinaryFile in = new BinaryFile(file.toString(), 'r');
+		char format = in.readMagicNumber();
+
+		in.close();
+		return format;
+	}
+
+	private static String[] concat(String first[], String second[], String third[]) {
+		List<String> all = new ArrayList<String>(Arrays.asList(first));
+
+		all.addAll(Arrays.asList(second));
+		all.addAll(Arrays.asList(third));
+		return all.toArray(new String[0]);
+	}
+
+	private static byte[] repeat(byte b, int n) {
+		byte data[] = new byte[n];
+
+		Arrays.fill(data, b);
+		return data;
+	}
+
+	private static byte[] twoSymbols(int n) {
+		byte data[] = new byte[n];
+		Random random = new Random(2);
+
+		for (int i = 0; i < n; i++) {
+			data[i] = (byte) (random.nextInt(10) == 0 ? 'b' : 'a');
+		}
+		return data;
+	}
+
+	/**
+	 * Words from a small vocabulary, so the text has both skewed character
+	 * frequencies and pairs of characters that keep coming back.
+	 * @param n
+	 * @return text
+	 */
+	static byte[] text(int n) {
+		String words[] = { "the", "huffman", "code", "of", "a", "block", "is", "built", "from", "frequencies",
+				"and", "written", "in", "canonical", "order", "\n", "42", "Zebra;" };
+		byte data[] = new byte[n];
+		Random random = new Random(1);
+		int i = 0;
+
+		while (i < n) {
+			String word = words[random.nextInt(words.length)] + " ";
+
+			for (int k = 0; k < word.length() && i < n; k++) {
+				data[i++] = (byte) word.charAt(k);
+			}
+		}
+		return data;
+	}
+
+	static byte[] random(int n) {
+		byte data[] = new byte[n];
+
+		new Random(3).nextBytes(data);
+		return data;
+	}
+}
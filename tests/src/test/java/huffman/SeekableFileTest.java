@@ -0,0 +1,192 @@
+package huffman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Random access to "HB" files: reads at and around block boundaries and the
+ * ends of the data, with and without an index, and through "-range".
+ */
+public class SeekableFileTest {
+	private static final int BLOCK = BlockCodec.MIN_BLOCK_SIZE;
+	private static final int LENGTH = 10 * BLOCK + 100;
+
+	@TempDir
+	Path dir;
+
+	private byte data[];
+	private Path indexed;
+	private Path stream;
+
+	@BeforeEach
+	void compress() throws Exception {
+		Path input = dir.resolve("input");
+
+		// a random block in the middle is stored, the others are coded
+		data = RoundTripTest.text(LENGTH);
+		System.arraycopy(RoundTripTest.random(BLOCK), 0, data, 4 * BLOCK, BLOCK);
+		Files.write(input, data);
+		indexed = dir.resolve("indexed");
+		Driver.main(new String[] { "-c", "-b", "1", input.toString(), indexed.toString() });
+
+		stream = dir.resolve("stream");
+		try (OutputStream out = new HuffmanOutputStream(Files.newOutputStream(stream), BLOCK, 15)) {
+			out.write(data);
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { true, false })
+	void blocks(boolean index) {
+		SeekableFile file = new SeekableFile(path(index).toString());
+
+		assertEquals(index, file.isIndexed());
+		assertEquals(LENGTH, file.length());
+		assertEquals(11, file.getBlocks());
+		file.close();
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { true, false })
+	void edges(boolean index) {
+		SeekableFile file = new SeekableFile(path(index).toString());
+		byte b[] = new byte[3 * BLOCK];
+
+		// a read stops at the end of the block it starts in
+		assertEquals(BLOCK, file.read(0, b, 0, b.length));
+		assertEquals(1, file.read(BLOCK - 1, b, 0, b.length));
+		assertEquals(data[BLOCK - 1], b[0]);
+		assertEquals(BLOCK, file.read(BLOCK, b, 0, b.length));
+		assertArrayEquals(Arrays.copyOfRange(data, BLOCK, 2 * BLOCK), Arrays.copyOf(b, BLOCK));
+		assertEquals(5, file.read(4 * BLOCK + 10, b, 7, 5));
+		assertArrayEquals(Arrays.copyOfRange(data, 4 * BLOCK + 10, 4 * BLOCK + 15), Arrays.copyOfRange(b, 7, 12));
+
+		// the last block is short
+		assertEquals(100, file.read(10 * BLOCK, b, 0, b.length));
+		assertEquals(1, file.read(LENGTH - 1, b, 0, b.length));
+		assertEquals(data[LENGTH - 1], b[0]);
+		assertEquals(-1, file.read(LENGTH, b, 0, b.length));
+		assertEquals(-1, file.read(LENGTH + 1000, b, 0, b.length));
+		assertEquals(-1, file.read(-1, b, 0, b.length));
+		file.close();
+	}
+
+	@Test
+	void decodesOnlyTheBlocksRead() {
+		SeekableFile file = new SeekableFile(indexed.toString());
+		byte b[] = new byte[BLOCK];
+
+		file.read(3 * BLOCK + 1, b, 0, 10);
+		file.read(3 * BLOCK + 20, b, 0, 10);
+		assertEquals(1, file.getDecodedBlocks());
+		file.read(7 * BLOCK, b, 0, 10);
+		assertEquals(2, file.getDecodedBlocks());
+		file.close();
+	}
+
+	@Test
+	void empty() throws Exception {
+		Path input = Files.write(dir.resolve("empty"), new byte[0]);
+		Path compressed = dir.resolve("empty.hb");
+
+		Driver.main(new String[] { "-c", "-b", input.toString(), compressed.toString() });
+		SeekableFile file = new SeekableFile(compressed.toString());
+
+		assertEquals(0, file.length());
+		assertEquals(-1, file.read(0, new byte[1], 0, 1));
+		file.close();
+	}
+
+	@ParameterizedTest
+	@CsvSource({ "0:1", "0:1024", "1023:1025", "5000:9000", "0:10340", "10339:", "100:100000", "10000:" })
+	void range(String range) throws Exception {
+		String bounds[] = range.split(":", -1);
+		int start = Integer.parseInt(bounds[0]);
+		int end = bounds[1].isEmpty() ? LENGTH : Math.min(Integer.parseInt(bounds[1]), LENGTH);
+
+		for (Path file : new Path[] { indexed, stream }) {
+			Path output = dir.resolve("range");
+
+			Driver.main(new String[] { "-u", "-range", range, file.toString(), output.toString() });
+			assertArrayEquals(Arrays.copyOfRange(data, start, end), Files.readAllBytes(output));
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "abc", "5", "1:2:3", "x:5", "5:y", ":", ":5" })
+	void badRange(String range) {
+		Path output = dir.resolve("range");
+
+		assertThrows(IllegalArgumentException.class,
+				() -> Driver.main(new String[] { "-u", "-range", range, indexed.toString(), output.toString() }));
+		assertFalse(Files.exists(output));
+	}
+
+	@ParameterizedTest
+	@CsvSource({ "10:5, 0, 0", "-5:10, 0, 10", "20000:30000, 0, 0" })
+	void clampedRange(String range, int start, int end) throws Exception {
+		Path output = dir.resolve("range");
+
+		Driver.main(new String[] { "-u", "-range", range, indexed.toString(), output.toString() });
+		assertArrayEquals(Arrays.copyOfRange(data, start, end), Files.readAllBytes(output));
+	}
+
+	/**
+	 * Files not written in blocks are turned down before anything is read or
+	 * written.
+	 */
+	@Test
+	void rangeOfOtherFormats() throws Exception {
+		Path input = Files.write(dir.resolve("input"), data);
+		Path canonical = dir.resolve("canonical");
+		Path output = dir.resolve("range");
+		PrintStream stderr = System.err;
+		ByteArrayOutputStream errors = new ByteArrayOutputStream();
+
+		Driver.main(new String[] { "-c", "-f", input.toString(), canonical.toString() });
+		try {
+			System.setErr(new PrintStream(errors));
+			for (Path file : new Path[] { canonical, input, dir.resolve("missing") }) {
+				Driver.main(new String[] { "-u", "-range", "0:10", file.toString(), output.toString() });
+				assertFalse(Files.exists(output));
+			}
+		}
+		finally {
+			System.setErr(stderr);
+		}
+		assertEquals(3, errors.toString().split("-range needs a file compressed in blocks", -1).length - 1);
+	}
+
+	@Test
+	void onlyBlockFiles() throws Exception {
+		Path input = Files.write(dir.resolve("input"), data);
+		Path canonical = dir.resolve("canonical");
+
+		Driver.main(new String[] { "-c", "-f", input.toString(), canonical.toString() });
+		assertTrue(SeekableFile.isBlockFile(indexed.toString()));
+		assertTrue(SeekableFile.isBlockFile(stream.toString()));
+		assertFalse(SeekableFile.isBlockFile(canonical.toString()));
+		assertFalse(SeekableFile.isBlockFile(input.toString()));
+	}
+
+	private Path path(boolean index) {
+		return index ? indexed : stream;
+	}
+}
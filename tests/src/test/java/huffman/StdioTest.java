@@ -0,0 +1,83 @@
+package huffman;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * "-stdio" pipes through Driver, and the errors HuffmanInputStream gives for
+ * input that is not a whole block stream.
+ */
+public class StdioTest {
+	/**
+	 * Runs Driver with the given standard input, and returns what it wrote
+	 * to standard output.
+	 * @param in
+	 * @param args
+	 * @return standard output
+	 */
+	private static byte[] pipe(byte in[], String... args) {
+		InputStream stdin = System.in;
+		PrintStream stdout = System.out;
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		try {
+			System.setIn(new ByteArrayInputStream(in));
+			System.setOut(new PrintStream(out));
+			Driver.main(args);
+		}
+		finally {
+			System.setIn(stdin);
+			System.setOut(stdout);
+		}
+		return out.toByteArray();
+	}
+
+	@ParameterizedTest(name = "stdio {0}")
+	@MethodSource("huffman.RoundTripTest#inputs")
+	void roundTrip(String name, byte data[]) {
+		byte compressed[] = pipe(data, "-stdio", "-c", "-b", "1", "-m", "12");
+
+		assertArrayEquals(BlockCodec.MAGIC, Arrays.copyOf(compressed, 2));
+		assertArrayEquals(data, pipe(compressed, "-stdio", "-u"));
+	}
+
+	/**
+	 * Messages printed while compressing go to standard error, so "-v" does
+	 * not end up in the data.
+	 */
+	@Test
+	void verbose() {
+		byte data[] = RoundTripTest.text(20000);
+		byte compressed[] = pipe(data, "-stdio", "-c", "-v");
+
+		assertArrayEquals(data, pipe(compressed, "-stdio", "-u", "-v"));
+	}
+
+	@Test
+	void truncated() {
+		byte data[] = RoundTripTest.text(3 * BlockCodec.MIN_BLOCK_SIZE);
+		byte compressed[] = pipe(data, "-stdio", "-c", "-b", "1");
+
+		for (int length : new int[] { 0, 1, 5, compressed.length / 2, compressed.length - 4 }) {
+			byte cut[] = Arrays.copyOf(compressed, length);
+
+			assertThrows(IOException.class, () -> {
+				try (InputStream in = new HuffmanInputStream(new ByteArrayInputStream(cut))) {
+					in.readAllBytes();
+				}
+			});
+		}
+		assertThrows(IOException.class, () -> new HuffmanInputStream(new ByteArrayInputStream(data)));
+	}
+}